@@ -7,6 +7,7 @@
  */
 module BFSPuzzles {
     requires transitive javafx.controls;
+    requires jdk.management;
     exports puzzles.tipover.gui;
     exports puzzles.lunarlanding.gui;
 }
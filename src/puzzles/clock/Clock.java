@@ -10,6 +10,11 @@ import java.util.*;
  */
 public class Clock {
 
+    /**
+     * The moves of the original puzzle, turning the hand back or forward one hour.
+     */
+    private static final ClockStep[] ONE_HOUR_STEPS = {new ClockStep(false, -1), new ClockStep(false, 1)};
+
     /**
      * The number of hours on the clock.
      */
@@ -26,15 +31,38 @@ public class Clock {
     private int end;
 
     /**
-     * Creates a new clock object.
+     * The moves that can be made from each hour, in the order the neighbors of an hour are made.
+     */
+    private ClockStep[] steps;
+
+    /**
+     * True if the steps are the original puzzle's, which are taken the way the original puzzle took them.
+     */
+    private boolean oneHourSteps;
+
+    /**
+     * Creates a new clock object whose hand can be turned back or forward one hour.
      * @param hours the number of hours on the clock
      * @param start the start hour of the puzzle
      * @param end the end hour of the puzzle
      */
     public Clock(int hours, int start, int end) {
+        this(hours, start, end, ONE_HOUR_STEPS.clone());
+    }
+
+    /**
+     * Creates a new clock object with its own set of moves.
+     * @param hours the number of hours on the clock
+     * @param start the start hour of the puzzle
+     * @param end the end hour of the puzzle
+     * @param steps the moves that can be made from each hour
+     */
+    public Clock(int hours, int start, int end, ClockStep[] steps) {
         this.hours = hours;
         this.start = start;
         this.end = end;
+        this.steps = steps;
+        this.oneHourSteps = Arrays.equals(steps, ONE_HOUR_STEPS);
     }
 
     /**
@@ -55,30 +83,102 @@ public class Clock {
      */
     public int getEnd() { return end; }
 
+    /**
+     * Returns the moves that can be made from each hour.
+     * @return the steps, which must not be changed
+     */
+    public ClockStep[] getSteps() { return steps; }
+
+    /**
+     * Returns true if the steps are the original puzzle's -1 +1, which go from the last hour to 1 and from 1 to
+     * the last hour instead of taking the hour mod the number of hours, so hours off the clock and clocks without
+     * hours give the same paths they always have.
+     * @return true for the original steps, false for any others
+     */
+    public boolean hasOneHourSteps() { return oneHourSteps; }
+
+    /**
+     * Returns the value the steps work on for an hour, the hour itself except 0 for the last hour.
+     * @param hour an hour on the clock
+     * @return the value of the hour
+     */
+    public int toValue(int hour) { return Math.floorMod(hour, hours); }
+
+    /**
+     * Returns the hour on the clock with a value, the value itself except the last hour for 0.
+     * @param value a value between 0 and hours - 1
+     * @return the hour with that value
+     */
+    public int toHour(int value) { return value == 0 ? hours : value; }
+
+    /**
+     * Solves a clock with arrays over every hour when they fit in memory, then with two bits per hour for clocks
+     * too big for that, otherwise with the regular Solver. The steps from a start that isn't an hour on the clock
+     * can lead to other hours the clock doesn't have, so only the regular Solver can search from it. The
+     * measurements are written out if -Dsolver.stats is set.
+     * @param clock the clock puzzle
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return the path from the start to the end, or null if there is none
+     */
+    public static LinkedList<ClockConfiguration> solve(Clock clock, boolean print) {
+        ClockConfiguration start = new ClockConfiguration(clock, clock.getStart());
+        LinkedList<ClockConfiguration> path;
+        SolverStats stats = null;  // Measurements of the solve, written out if -Dsolver.stats is set
+        if (IndexedSolver.fits(start)) {
+            IndexedSolver<ClockConfiguration> solver = new IndexedSolver<>(start);
+            path = solver.solve(print);
+            stats = solver.getStats();
+        }
+        else if (ClockBitSolver.fits(clock)) {
+            ClockBitSolver solver = new ClockBitSolver(clock);
+            path = solver.solve(print);
+            stats = solver.getStats();
+        }
+        else {
+            Solver<ClockConfiguration> solver = new Solver<>(start);
+            path = solver.solve(print);
+            stats = solver.getStats();
+        }
+        if (stats != null) {
+            stats.writeIfRequested();
+        }
+        return path;
+    }
+
     /**
      * Run an instance of the clock puzzle.
      * @param args [0]: number of hours on the clock;
      *             [1]: starting time on the clock;
-     *             [2]: goal time to which the clock should be set.
+     *             [2]: goal time to which the clock should be set;
+     *             [3..N]: optional moves written as +k, -k or *m, defaults to -1 +1.
      */
     public static void main( String[] args ) {
-        if ( args.length != 3 ) {
-            System.out.println("Usage: java Clock hours start end");
+        if ( args.length < 3 ) {
+            System.out.println("Usage: java Clock hours start end [step ...]");
         }
         else {
             // Try catch block to catch if command line args aren't ints
             try {
-                // Creates new Clock with input from command line
-                Clock clock = new Clock(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
-                        Integer.parseInt(args[2]));
+                // Creates new Clock with input from command line, with the default steps if none are given
+                Clock clock;
+                if (args.length == 3) {
+                    clock = new Clock(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                            Integer.parseInt(args[2]));
+                }
+                else {
+                    ClockStep[] steps = new ClockStep[args.length - 3];
+                    for (int i = 3; i < args.length; i++) {
+                        steps[i - 3] = ClockStep.parse(args[i]);
+                    }
+                    clock = new Clock(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                            Integer.parseInt(args[2]), steps);
+                }
 
                 // Prints out info on the puzzle
                 System.out.println("Hours: " + clock.getHours() + ", Start: " + clock.getStart() + ", End: " +
                         clock.getEnd());
 
-                // Creates a new Solver with the initial configuration to find a solution
-                Solver<ClockConfiguration> solution = new Solver<>(new ClockConfiguration(clock, clock.getStart()));
-                LinkedList<ClockConfiguration> path = solution.solve(true);  // LinkedList to store solution
+                LinkedList<ClockConfiguration> path = solve(clock, true);  // LinkedList to store solution
 
                 // If path is null no solution was found
                 if (path == null) {
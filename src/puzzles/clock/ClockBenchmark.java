@@ -0,0 +1,140 @@
+package puzzles.clock;
+
+import solver.Solver;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Checks the ClockBitSolver against the Solver and measures it on clocks too big for the other solvers.
+ *
+ * @author Luke Chelius
+ */
+public class ClockBenchmark {
+
+    /**
+     * The hours, start and end of clocks with the original -1 +1 steps whose start isn't an hour on the clock or
+     * that have no hours, each followed by the hours of the path the original puzzle printed for it, empty for no
+     * solution.
+     */
+    private static final int[][][] OFF_CLOCK = {
+            {{12, 13, 2}, {13, 1, 2}},
+            {{12, 0, 5}, {0, 1, 2, 3, 4, 5}},
+            {{12, -4, 5}, {-4, 12, 1, 2, 3, 4, 5}},
+            {{12, 13, 1}, {13, 1}},
+            {{12, 0, 6}, {0, 1, 2, 3, 4, 5, 6}},
+            {{0, 1, 2}, {}},
+            {{-3, 1, 2}, {}},
+            {{-5, -2, -7}, {}}
+    };
+
+    /**
+     * Makes random clocks with one to four random steps, solves each with the Solver and the ClockBitSolver, and
+     * checks that both paths have the same length and that the bitmap path is a legal sequence of moves. Then
+     * checks that Clock solves the clocks in OFF_CLOCK with the paths the original puzzle took, and that a clock
+     * without hours but with other steps has no solution.
+     * @param count the number of clocks to make
+     * @param maxHours the most hours a clock can have
+     * @param seed the seed for the random clocks, so a failure can be repeated
+     */
+    private static void check(int count, int maxHours, long seed) {
+        Random random = new Random(seed);
+        int solved = 0;
+        for (int n = 0; n < count; n++) {
+            int hours = 1 + random.nextInt(maxHours);
+            ClockStep[] steps = new ClockStep[1 + random.nextInt(4)];
+            // Half the multiply steps get a small factor, which the ClockBitSolver handles a byte at a time
+            for (int i = 0; i < steps.length; i++) {
+                boolean multiply = random.nextInt(3) == 0;
+                int amount = multiply && random.nextBoolean() ? 2 + random.nextInt(7)
+                        : random.nextInt(2 * hours + 1) - hours;
+                steps[i] = new ClockStep(multiply, amount);
+            }
+            Clock clock = new Clock(hours, 1 + random.nextInt(hours), 1 + random.nextInt(hours), steps);
+            String puzzle = hours + " hours from " + clock.getStart() + " to " + clock.getEnd() + " with steps "
+                    + Arrays.toString(steps);
+
+            LinkedList<ClockConfiguration> expected = new Solver<>(new ClockConfiguration(clock,
+                    clock.getStart())).solve(false);
+            LinkedList<ClockConfiguration> path = new ClockBitSolver(clock).solve(false);
+            if ((path == null) != (expected == null) || (path != null && path.size() != expected.size())) {
+                throw new IllegalStateException("ClockBitSolver path length differs from Solver for " + puzzle);
+            }
+            if (path == null) {
+                continue;
+            }
+            if (path.getFirst().getHour() != clock.getStart() || !path.getLast().isSolution()) {
+                throw new IllegalStateException("ClockBitSolver path doesn't go from the start to the end for "
+                        + puzzle);
+            }
+            for (int i = 1; i < path.size(); i++) {
+                if (!path.get(i - 1).getNeighbors().contains(path.get(i))) {
+                    throw new IllegalStateException("ClockBitSolver path has an illegal move for " + puzzle);
+                }
+            }
+            solved++;
+        }
+        System.out.printf("%d clocks: %d solved, all match the Solver%n", count, solved);
+
+        for (int[][] puzzle : OFF_CLOCK) {
+            int[] args = puzzle[0];
+            LinkedList<ClockConfiguration> path = Clock.solve(new Clock(args[0], args[1], args[2]), false);
+            int[] hours = path == null ? new int[0] : path.stream().mapToInt(ClockConfiguration::getHour).toArray();
+            if (!Arrays.equals(hours, puzzle[1])) {
+                throw new IllegalStateException("Clock path " + Arrays.toString(hours) + " differs from "
+                        + Arrays.toString(puzzle[1]) + " for " + Arrays.toString(args));
+            }
+        }
+        if (Clock.solve(new Clock(0, 1, 2, new ClockStep[]{new ClockStep(false, 1)}), false) != null) {
+            throw new IllegalStateException("Clock without hours was solved with a +1 step");
+        }
+        System.out.printf("%d clocks off the clock or without hours: all match the original puzzle%n",
+                OFF_CLOCK.length + 1);
+    }
+
+    /**
+     * Solves one clock with the ClockBitSolver and prints how long it took, the length of the path and the bytes
+     * its bitmaps use.
+     * @param clock the clock puzzle
+     */
+    private static void bits(Clock clock) {
+        long begin = System.nanoTime();
+        LinkedList<ClockConfiguration> path = new ClockBitSolver(clock).solve(false);
+        long end = System.nanoTime();
+        System.out.printf("%d hours: %d moves in %.2f s with %,d bytes of bitmap%n", clock.getHours(),
+                path == null ? -1 : path.size() - 1, (end - begin) / 1e9,
+                ClockBitSolver.memoryBytes(clock.getHours()));
+    }
+
+    /**
+     * Runs a benchmark.
+     * @param args [0]: the benchmark to run (check or bits);
+     *             for check, [1]: optional number of random clocks, defaults to 1000; [2]: optional most hours,
+     *             defaults to 300; [3]: optional random seed, defaults to 1;
+     *             for bits, [1..3]: hours, start and end; [4..N]: optional steps, defaults to -1 +1.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java ClockBenchmark check [count] [hours] [seed]");
+            System.out.println("       java ClockBenchmark bits hours start end [step ...]");
+            return;
+        }
+        switch (args[0]) {
+            case "check" -> check(args.length > 1 ? Integer.parseInt(args[1]) : 1000,
+                    args.length > 2 ? Integer.parseInt(args[2]) : 300,
+                    args.length > 3 ? Long.parseLong(args[3]) : 1);
+            case "bits" -> {
+                ClockStep[] steps = new ClockStep[args.length - 4];
+                for (int i = 4; i < args.length; i++) {
+                    steps[i - 4] = ClockStep.parse(args[i]);
+                }
+                int hours = Integer.parseInt(args[1]);
+                int start = Integer.parseInt(args[2]);
+                int end = Integer.parseInt(args[3]);
+                bits(steps.length == 0 ? new Clock(hours, start, end) : new Clock(hours, start, end, steps));
+            }
+            default -> System.out.println("Unknown benchmark: " + args[0]);
+        }
+    }
+}
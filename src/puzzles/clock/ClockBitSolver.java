@@ -0,0 +1,685 @@
+package puzzles.clock;
+
+import solver.SolverStats;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * A BFS for clocks too big to keep a configuration or parent for every hour. Each hour gets 2 bits holding 0 if
+ * it hasn't been visited and otherwise 1 more than its depth mod 3. A level is advanced a whole word of hours at
+ * a time: turning the clock by k hours is the frontier rotated by k, so every turning step is a shifted read of
+ * the frontier ORed into the next level, and a multiply step by a small factor spreads each byte of the frontier
+ * out from a table. While a level is small it is kept as a list of hours instead and only those are expanded, so
+ * clocks that only turn by a few hours don't scan the bitmaps once per level.
+ *
+ * The path is rebuilt backwards from the end hour by stepping to a predecessor whose depth mod 3 is one less.
+ * A predecessor can be deeper than the hour it leads into when the steps can't be undone, so when the depths
+ * mod 3 don't settle which predecessor comes first one is tried and the others are kept to go back to. Every hour
+ * on such a walk is at least as deep as its place on the walk and has the same depth mod 3, so a walk is right
+ * exactly when it ends at the start, and one that doesn't goes back to the last predecessor not yet tried. An hour
+ * that failed at a place is never tried there again, and the bitmaps are never searched twice.
+ *
+ * @author Luke Chelius
+ */
+public class ClockBitSolver {
+
+    /**
+     * The largest factor whose multiply steps are done a byte at a time, since a byte spread out by it has to fit
+     * in a long.
+     */
+    private static final int MAX_SPREAD_FACTOR = 8;
+
+    /**
+     * The clock puzzle being solved.
+     */
+    private Clock clock;
+
+    /**
+     * The number of hours on the clock.
+     */
+    private int hours;
+
+    /**
+     * The number of longs in each bitmap.
+     */
+    private int words;
+
+    /**
+     * The bits of the last word that are hours on the clock.
+     */
+    private long lastMask;
+
+    /**
+     * The hours each turning step moves the clock forward.
+     */
+    private int[] turns;
+
+    /**
+     * The numbers each multiply step multiplies the hour by.
+     */
+    private int[] factors;
+
+    /**
+     * For each multiply step with a factor from 2 up to MAX_SPREAD_FACTOR, every byte spread out to have its bits
+     * factor apart, so a byte of the frontier can be multiplied at once. Null for the other steps.
+     */
+    private long[][] spreads;
+
+    /**
+     * The depth codes of the hours, 64 at a time. The low bits of word w's hours are at 2w and the high bits right
+     * after at 2w + 1, so looking up an hour reads one cache line.
+     */
+    private long[] codes;
+
+    /**
+     * The most hours kept in a list for a level, past which the level is only in the bitmaps.
+     */
+    private int listLimit;
+
+    /**
+     * The hours found for the next level while it fits in a list.
+     */
+    private int[] next;
+
+    /**
+     * The number of hours in next, or -1 if the level got too big for it.
+     */
+    private int nextSize;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private long totalConfigs;
+
+    /**
+     * The number of configurations visited.
+     */
+    private long uniqueConfigs;
+
+    /**
+     * The measurements of the last solve.
+     */
+    private SolverStats stats;
+
+    /**
+     * Creates a new ClockBitSolver and allocates its bitmaps for every hour on the clock.
+     * @param clock the clock puzzle, whose start and end have to be hours on the clock
+     */
+    public ClockBitSolver(Clock clock) {
+        this.clock = clock;
+        this.hours = clock.getHours();
+        this.words = (int) ((hours + 63L) / 64);
+        this.lastMask = hours % 64 == 0 ? -1L : (1L << hours % 64) - 1;
+        this.codes = new long[2 * words];
+        this.listLimit = words / 4 + 1;
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+        this.stats = new SolverStats();
+
+        int turnCount = 0;
+        for (ClockStep step : clock.getSteps()) {
+            turnCount += step.isMultiply() ? 0 : 1;
+        }
+        this.turns = new int[turnCount];
+        this.factors = new int[clock.getSteps().length - turnCount];
+        int t = 0;
+        int m = 0;
+        for (ClockStep step : clock.getSteps()) {
+            if (step.isMultiply()) {
+                factors[m++] = step.amount(hours);
+            }
+            else {
+                turns[t++] = step.amount(hours);
+            }
+        }
+
+        // Clocks with fewer hours than a few spread bytes cover are left to the one hour at a time path, so a
+        // spread byte never wraps around the clock more than once
+        this.spreads = new long[factors.length][];
+        for (int f = 0; f < factors.length; f++) {
+            if (factors[f] >= 2 && factors[f] <= MAX_SPREAD_FACTOR && hours >= 64 * MAX_SPREAD_FACTOR) {
+                spreads[f] = new long[256];
+                for (int b = 0; b < 256; b++) {
+                    for (int i = 0; i < 8; i++) {
+                        spreads[f][b] |= (long) (b >>> i & 1) << (i * factors[f]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes the solver allocates for a clock with a given number of hours.
+     * @param hours the number of hours on the clock
+     * @return the bytes used by the depth codes and the lists of small levels
+     */
+    public static long memoryBytes(int hours) {
+        long words = (hours + 63L) / 64;
+        return 2 * 8 * words + 2 * 4 * (words / 4 + 1);
+    }
+
+    /**
+     * Checks if a clock can be solved by a ClockBitSolver: its start and end are hours on the clock and the
+     * bitmaps fit in half of the largest heap the JVM may use.
+     * @param clock the clock puzzle
+     * @return true if a ClockBitSolver can be used for the clock, false otherwise
+     */
+    public static boolean fits(Clock clock) {
+        return clock.getHours() > 0 && clock.getStart() >= 1 && clock.getStart() <= clock.getHours()
+                && clock.getEnd() >= 1 && clock.getEnd() <= clock.getHours()
+                && memoryBytes(clock.getHours()) <= Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    /**
+     * Performs BFS over the bitmaps until the end hour is visited, then rebuilds the path to it.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps, or null if the end can't be reached
+     */
+    public LinkedList<ClockConfiguration> solve(boolean print) {
+        stats.begin();
+        int depth = search(clock.toValue(clock.getEnd()));
+        printConfigs(print);
+        if (depth < 0) {
+            stats.end(totalConfigs, uniqueConfigs, uniqueConfigs, null);
+            return null;
+        }
+
+        LinkedList<ClockConfiguration> solution = new LinkedList<>();
+        for (int value : rebuild(depth)) {
+            solution.add(new ClockConfiguration(clock, clock.toHour(value)));
+        }
+        stats.end(totalConfigs, uniqueConfigs, uniqueConfigs, solution);
+        return solution;
+    }
+
+    /**
+     * Searches from the start hour, filling in the depth codes, until a goal hour is visited or no new hours are
+     * found.
+     * @param goal the value of the hour to stop at
+     * @return the depth of the goal, or -1 if it wasn't reached
+     */
+    private int search(int goal) {
+        Arrays.fill(codes, 0);
+        int startValue = clock.toValue(clock.getStart());
+        mark(startValue, code(0));
+        long total = 1;
+        long unique = 1;
+
+        int[] frontier = {startValue};  // The current level while it fits in a list, null once it doesn't
+        int frontierSize = 1;
+        long found = 1;  // The number of hours in the current level
+        int depth = 0;
+        while (goal != startValue && found > 0) {
+            long generated = found * clock.getSteps().length;
+            stats.startLevel(found);
+            total += generated;
+            next = new int[(int) Math.min(listLimit, Math.max(16, generated))];
+            nextSize = 0;
+            long expanded = found;
+            found = frontier != null ? expandList(frontier, frontierSize, code(depth + 1))
+                    : expandBitmaps(code(depth), code(depth + 1));
+            stats.expandedLevel(expanded, generated, generated - found);
+            depth++;
+            unique += found;
+            frontier = nextSize < 0 ? null : next;
+            frontierSize = nextSize;
+            if (codeOf(goal) != 0) {
+                break;
+            }
+        }
+        next = null;
+
+        totalConfigs = total;
+        uniqueConfigs = unique;
+        return codeOf(goal) != 0 ? depth : -1;
+    }
+
+    /**
+     * Walks back from the end hour to the start one level at a time, trying another predecessor whenever a walk
+     * turns out not to end at the start.
+     * @param depth the depth of the end hour
+     * @return the value of the hour at each level, from the start to the end
+     */
+    private int[] rebuild(int depth) {
+        int startValue = clock.toValue(clock.getStart());
+        int[] walk = new int[depth + 1];
+        walk[depth] = clock.toValue(clock.getEnd());
+        ArrayDeque<Parents> choices = new ArrayDeque<>();  // The levels with predecessors left to try
+        HashMap<Integer, Integer> failed = new HashMap<>();  // The highest level each hour failed at
+
+        int level = depth;
+        while (level > 0 || walk[0] != startValue) {
+            int parent = -1;
+            if (level > 0) {
+                Parents parents = new Parents(walk[level], level, failed);
+                parent = parents.take();
+                if (parents.hasNext()) {
+                    choices.push(parents);
+                }
+            }
+            if (parent >= 0) {
+                walk[--level] = parent;
+                continue;
+            }
+
+            // Every hour from here up to the last choice failed at its level, so the next predecessor is tried
+            int failedFrom = level;
+            while (true) {
+                Parents choice = choices.peek();
+                if (choice == null) {
+                    throw new IllegalStateException("No walk back from the end hour reaches the start");
+                }
+                for (int i = failedFrom; i < choice.level; i++) {
+                    failed.merge(walk[i], i, Math::max);
+                }
+                parent = choice.take();
+                if (!choice.hasNext()) {
+                    choices.pop();
+                }
+                if (parent >= 0) {
+                    level = choice.level - 1;
+                    walk[level] = parent;
+                    break;
+                }
+                failedFrom = choice.level;
+            }
+        }
+        return walk;
+    }
+
+    /**
+     * The predecessors of an hour at a level whose code is the level before, in the order of the steps and then
+     * of the hours. One that the hour also leads into by a step can't be more than one level deeper than the hour,
+     * so its code can only mean the level before and it is the only one given.
+     */
+    private class Parents {
+
+        /**
+         * The value of the hour.
+         */
+        private final int value;
+
+        /**
+         * The level of the hour on the walk.
+         */
+        private final int level;
+
+        /**
+         * The highest level each hour failed at.
+         */
+        private final HashMap<Integer, Integer> failed;
+
+        /**
+         * The index of the step the next predecessor comes from, the number of steps once there are none left.
+         */
+        private int step;
+
+        /**
+         * The next predecessor, -1 if there are none left.
+         */
+        private int pending;
+
+        /**
+         * Finds the first predecessor of an hour.
+         * @param value the value of the hour
+         * @param level the level of the hour on the walk, more than 0
+         * @param failed the highest level each hour failed at
+         */
+        Parents(int value, int level, HashMap<Integer, Integer> failed) {
+            this.value = value;
+            this.level = level;
+            this.failed = failed;
+            this.step = clock.getSteps().length;
+            this.pending = -1;
+            for (ClockStep each : clock.getSteps()) {
+                int certain = each.findInverse(value, hours,
+                        before -> codeOf(before) == code(level - 1) && isNeighbor(value, before));
+                if (certain >= 0) {
+                    pending = fits(certain) ? certain : -1;
+                    return;
+                }
+            }
+            this.step = 0;
+            advance(-1);
+        }
+
+        /**
+         * Checks if there is another predecessor to try.
+         * @return true if there is one, false otherwise
+         */
+        boolean hasNext() {
+            return pending >= 0;
+        }
+
+        /**
+         * Returns the next predecessor that hasn't failed at the level before, and finds the one after it.
+         * @return the predecessor, or -1 if there are none left
+         */
+        int take() {
+            while (pending >= 0 && !fits(pending)) {
+                advance(pending);
+            }
+            int parent = pending;
+            if (parent >= 0) {
+                advance(parent);
+            }
+            return parent;
+        }
+
+        /**
+         * Moves pending to the next predecessor after one, from the same step or a later one.
+         * @param after the last predecessor of the current step, -1 to start the step from its first one
+         */
+        private void advance(int after) {
+            for (int from = after; step < clock.getSteps().length; step++, from = -1) {
+                int last = from;
+                pending = clock.getSteps()[step].findInverse(value, hours, before -> before > last && fits(before));
+                if (pending >= 0) {
+                    return;
+                }
+            }
+            pending = -1;
+        }
+
+        /**
+         * Checks if an hour could be at the level before: it has the code of that level and hasn't failed there.
+         * An hour that failed at a level is at least 3 levels deeper, so it fails at every level below that too.
+         * @param before the value of the hour
+         * @return true if it could be the predecessor, false otherwise
+         */
+        private boolean fits(int before) {
+            return codeOf(before) == code(level - 1) && failed.getOrDefault(before, -1) < level - 1;
+        }
+    }
+
+    /**
+     * Expands a level kept in a list, taking every step from each of its hours.
+     * @param frontier the hours in the level
+     * @param size the number of hours in the level
+     * @param nextCode the code of the next level
+     * @return the number of new hours found
+     */
+    private long expandList(int[] frontier, int size, int nextCode) {
+        long found = 0;
+        for (int i = 0; i < size; i++) {
+            for (ClockStep step : clock.getSteps()) {
+                int value = step.apply(frontier[i], hours);
+                if (codeOf(value) == 0) {
+                    mark(value, nextCode);
+                    record(value);
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Expands a level kept only in the bitmaps a word at a time. The hours with the level's code also include
+     * ones 3, 6 or more levels back, but those have already been expanded so nothing new comes from them.
+     * @param code the code of the level
+     * @param nextCode the code of the next level
+     * @return the number of new hours found
+     */
+    private long expandBitmaps(int code, int nextCode) {
+        long found = 0;
+        long lowFlip = (code & 1) != 0 ? 0 : -1L;
+        long highFlip = (code & 2) != 0 ? 0 : -1L;
+
+        // Each turn moves the frontier bit at p - turn to p. Hours before the turn come from the end of the clock
+        // and the rest from the start, so apart from the word where that changes every word is two words of the
+        // frontier shifted by the same amount. All the turns are ORed together so each word is only written once
+        int[] boundaries = new int[turns.length];
+        for (int t = 0; t < turns.length; t++) {
+            boundaries[t] = turns[t] >>> 6;
+        }
+        for (int j = 0; j < words; j++) {
+            long bits = 0;
+            for (int t = 0; t < turns.length; t++) {
+                if (j == boundaries[t]) {
+                    bits |= frontierBits(Math.floorMod((long) j * 64 - turns[t], (long) hours), code);
+                    continue;
+                }
+                long start = (long) j * 64 - turns[t] + (j < boundaries[t] ? hours : 0);
+                int word = (int) (start >>> 6);
+                int offset = (int) (start & 63);
+                if (word < words) {
+                    bits |= ((codes[2 * word] ^ lowFlip) & (codes[2 * word + 1] ^ highFlip)) >>> offset;
+                }
+                if (offset != 0 && word + 1 < words) {
+                    bits |= ((codes[2 * word + 2] ^ lowFlip) & (codes[2 * word + 3] ^ highFlip)) << (64 - offset);
+                }
+            }
+            found += orWord(j, j == words - 1 ? bits & lastMask : bits, nextCode);
+        }
+
+        // Multiplying scatters the hours, but the hours of one byte land factor apart, so with a small factor each
+        // byte is spread out from a table and ORed in at once, otherwise they are taken one at a time. The product
+        // of each word's first hour is kept by adding the factor times 64, so there is only a division when a
+        // product wraps past the end
+        for (int f = 0; f < factors.length; f++) {
+            int factor = factors[f];
+            long[] spread = spreads[f];
+            long base = 0;
+            long baseStep = (long) factor * 64 % hours;
+            for (int j = 0; j < words; j++) {
+                long frontier = (codes[2 * j] ^ lowFlip) & (codes[2 * j + 1] ^ highFlip);
+                if (j == words - 1) {
+                    frontier &= lastMask;
+                }
+                if (spread != null) {
+                    for (int k = 0; k < 8; k++) {
+                        int b = (int) (frontier >>> 8 * k & 255);
+                        if (b != 0) {
+                            long to = base + 8L * factor * k;
+                            found += orBits(to >= hours ? to - hours : to, spread[b], 8 * factor, nextCode);
+                        }
+                    }
+                }
+                else {
+                    for (long rest = frontier; rest != 0; rest &= rest - 1) {
+                        long to = base + (long) factor * Long.numberOfTrailingZeros(rest);
+                        if (to >= hours) {
+                            to %= hours;
+                        }
+                        if (codeOf((int) to) == 0) {
+                            mark((int) to, nextCode);
+                            record((int) to);
+                            found++;
+                        }
+                    }
+                }
+                base += baseStep;
+                if (base >= hours) {
+                    base -= hours;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gives the unvisited hours in a row of bits the next level's code, wrapping past the last hour back to the
+     * first.
+     * @param position the hour of the first bit, between 0 and hours - 1
+     * @param bits the row of bits, bit i for the hour at position + i
+     * @param length the number of bits in the row, no more than 64 or the number of hours
+     * @param nextCode the code of the next level
+     * @return the number of new hours found
+     */
+    private long orBits(long position, long bits, int length, int nextCode) {
+        if (position + length > hours) {
+            int before = (int) (hours - position);
+            return orBits(position, bits & (1L << before) - 1, before, nextCode)
+                    + orBits(0, bits >>> before, length - before, nextCode);
+        }
+        int word = (int) (position >>> 6);
+        int offset = (int) (position & 63);
+        long found = orWord(word, bits << offset, nextCode);
+        if (offset != 0 && offset + length > 64) {
+            found += orWord(word + 1, bits >>> (64 - offset), nextCode);
+        }
+        return found;
+    }
+
+    /**
+     * Gives the unvisited hours out of some in a word the next level's code.
+     * @param word the index of the word
+     * @param bits the hours in the word
+     * @param nextCode the code of the next level
+     * @return the number of new hours found
+     */
+    private long orWord(int word, long bits, int nextCode) {
+        bits &= ~(codes[2 * word] | codes[2 * word + 1]);
+        if (bits == 0) {
+            return 0;
+        }
+        markWord(word, bits, nextCode);
+        for (long rest = bits; rest != 0 && nextSize >= 0; rest &= rest - 1) {
+            record(word * 64 + Long.numberOfTrailingZeros(rest));
+        }
+        return Long.bitCount(bits);
+    }
+
+    /**
+     * Checks if one of the steps turns one hour into another.
+     * @param from the value of the first hour
+     * @param to the value of the second hour
+     * @return true if a step goes from the first to the second, false otherwise
+     */
+    private boolean isNeighbor(int from, int to) {
+        for (ClockStep step : clock.getSteps()) {
+            if (step.apply(from, hours) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds an hour to the list of the next level, or gives up on the list if it is full.
+     * @param value the value of the hour
+     */
+    private void record(int value) {
+        if (nextSize < 0) {
+            return;
+        }
+        if (nextSize == listLimit) {
+            nextSize = -1;
+            return;
+        }
+        if (nextSize == next.length) {
+            next = Arrays.copyOf(next, (int) Math.min(listLimit, 2L * next.length));
+        }
+        next[nextSize++] = value;
+    }
+
+    /**
+     * Returns 64 bits of the frontier in a row starting at a position, wrapping past the last hour back to the
+     * first, so bit i of the result is the frontier at position + i.
+     * @param start the position of the first bit, between 0 and hours - 1
+     * @param code the code of the frontier
+     * @return the 64 bits
+     */
+    private long frontierBits(long start, int code) {
+        long bits = 0;
+        int filled = 0;
+        while (filled < 64) {
+            int word = (int) (start >>> 6);
+            int offset = (int) (start & 63);
+            long chunk = frontierWord(word, code) >>> offset;
+            if (offset != 0) {
+                chunk |= frontierWord(word + 1, code) << (64 - offset);
+            }
+            int take = (int) Math.min(64 - filled, hours - start);
+            if (take < 64) {
+                chunk &= (1L << take) - 1;
+            }
+            bits |= chunk << filled;
+            filled += take;
+            start = 0;
+        }
+        return bits;
+    }
+
+    /**
+     * Returns which hours in a word have a code.
+     * @param word the index of the word, 0 past the last one
+     * @param code the code, 1 to 3
+     * @return the bits of the hours with the code
+     */
+    private long frontierWord(int word, int code) {
+        if (word >= words) {
+            return 0;
+        }
+        long lowBits = (code & 1) != 0 ? codes[2 * word] : ~codes[2 * word];
+        long highBits = (code & 2) != 0 ? codes[2 * word + 1] : ~codes[2 * word + 1];
+        return lowBits & highBits;
+    }
+
+    /**
+     * Returns the code of an hour, 0 if it hasn't been visited and 1 more than its depth mod 3 otherwise.
+     * @param value the value of the hour
+     * @return the code
+     */
+    private int codeOf(int value) {
+        int word = 2 * (value >>> 6);
+        return (int) (codes[word] >>> value & 1) | (int) (codes[word + 1] >>> value & 1) << 1;
+    }
+
+    /**
+     * Sets the code of an unvisited hour.
+     * @param value the value of the hour
+     * @param code the code, 1 to 3
+     */
+    private void mark(int value, int code) {
+        markWord(value >>> 6, 1L << value, code);
+    }
+
+    /**
+     * Sets the code of the unvisited hours in a word.
+     * @param word the index of the word
+     * @param bits the hours to set
+     * @param code the code, 1 to 3
+     */
+    private void markWord(int word, long bits, int code) {
+        if ((code & 1) != 0) {
+            codes[2 * word] |= bits;
+        }
+        if ((code & 2) != 0) {
+            codes[2 * word + 1] |= bits;
+        }
+    }
+
+    /**
+     * Returns the code of a level.
+     * @param depth the depth of the level
+     * @return 1 more than the depth mod 3
+     */
+    private static int code(int depth) {
+        return 1 + depth % 3;
+    }
+
+    /**
+     * Returns the measurements of the last solve, per level and in total.
+     * @return the stats of the last solve
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Prints the total and unique config counts the same way {@link solver.Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + uniqueConfigs);  // Prints the unique config count
+        }
+    }
+}
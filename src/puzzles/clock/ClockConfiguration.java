@@ -1,14 +1,17 @@
 package puzzles.clock;
 
 import solver.*;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.function.Consumer;
 
 /**
  * Configuration for the Clock puzzle for the solver algorithm to use.
  *
  * @author Luke Chelius
  */
-public class ClockConfiguration implements Configuration{
+public class ClockConfiguration implements ReversibleConfiguration, HeuristicConfiguration,
+        EncodableConfiguration, IndexedConfiguration {
 
     /**
      * The clock puzzle the configuration is for.
@@ -78,21 +81,146 @@ public class ClockConfiguration implements Configuration{
     }
 
     /**
-     * Returns a LinkedList of the configuration's neighbors, which are its hour + or - 1 and wraps back to 1 or
-     * to the last hour on the clock.
+     * Hands the configuration's neighbors to a consumer, one for each of the clock's steps in order, which by
+     * default are its hour - 1 and then its hour + 1, wrapping back to 1 or to the last hour on the clock. A clock
+     * without hours has nowhere for any other steps to go, so it has no neighbors then.
+     * @param sink the consumer that is given each neighbor
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachNeighbor(Consumer sink) {
+        if (clock.hasOneHourSteps()) {
+            int next = hour + 1;  // Find the upper neighbor
+            if (next > clock.getHours()) { next = 1; }  // Sets next to 1 if it goes past the max hour on the clock
+            int prev = hour - 1;  // Find the previous neighbor
+            if (prev < 1) { prev = clock.getHours(); }  // Sets prev to the max hour on the clock if it gets < 1
+
+            // Hands over both neighbors
+            sink.accept(new ClockConfiguration(clock, prev));
+            sink.accept(new ClockConfiguration(clock, next));
+            return;
+        }
+        if (clock.getHours() <= 0) {
+            return;
+        }
+        int value = clock.toValue(hour);
+        for (ClockStep step : clock.getSteps()) {
+            sink.accept(new ClockConfiguration(clock, clock.toHour(step.apply(value, clock.getHours()))));
+        }
+    }
+
+    /**
+     * Returns a LinkedList of the configuration's neighbors, one for each of the clock's steps, which by default
+     * are its hour + or - 1 and wraps back to 1 or to the last hour on the clock.
      * @return a LinkedList of the configuration's neighbors
      */
     @Override
     public LinkedList<ClockConfiguration> getNeighbors() {
         LinkedList<ClockConfiguration> neighbors = new LinkedList<>();  // LinkedList to hold the neighbors
-        int next = hour + 1;  // Find the upper neighbor
-        if (next > clock.getHours()) { next = 1; }  // Sets next to 1 if it goes past the max hour on the clock
-        int prev = hour - 1;  // Find the previous neighbor
-        if (prev < 1) { prev = clock.getHours(); }  // Sets prev to the max hour on the clock if it gets < 1
-
-        // Adds both neighbors to the LinkedList of neighbors
-        neighbors.add(new ClockConfiguration(clock, prev));
-        neighbors.add(new ClockConfiguration(clock, next));
+        forEachNeighbor(neighbor -> neighbors.add((ClockConfiguration) neighbor));
         return neighbors;
     }
+
+    /**
+     * Returns a LinkedList holding the only goal of the clock, the configuration at the end hour.
+     * @return a LinkedList of the goal configuration
+     */
+    @Override
+    public LinkedList<ClockConfiguration> getGoals() {
+        LinkedList<ClockConfiguration> goals = new LinkedList<>();
+        goals.add(new ClockConfiguration(clock, clock.getEnd()));
+        return goals;
+    }
+
+    /**
+     * Returns a LinkedList of the configurations that lead into this one, every hour that one of the clock's
+     * steps turns into this hour, and none on a clock without hours.
+     * @return a LinkedList of the configuration's predecessors
+     */
+    @Override
+    public LinkedList<ClockConfiguration> getPredecessors() {
+        if (clock.getHours() <= 0) {
+            return new LinkedList<>();
+        }
+        LinkedHashSet<ClockConfiguration> predecessors = new LinkedHashSet<>();  // Set to skip duplicates
+        int value = clock.toValue(hour);
+        for (ClockStep step : clock.getSteps()) {
+            step.findInverse(value, clock.getHours(), before -> {
+                predecessors.add(new ClockConfiguration(clock, clock.toHour(before)));
+                return false;
+            });
+        }
+        return new LinkedList<>(predecessors);
+    }
+
+    /**
+     * Returns the number of hours between this hour and the end hour going the shorter way around the clock,
+     * divided by the most any step turns the clock and rounded up, which never overestimates the moves left.
+     * Multiplying can jump anywhere on the clock, so with a multiply step or no hours it is 0.
+     * @return a lower bound on the number of moves to the end hour
+     */
+    @Override
+    public int heuristic() {
+        if (clock.getHours() <= 0) {
+            return 0;
+        }
+        int farthest = 0;  // The most hours a step turns the clock either way
+        for (ClockStep step : clock.getSteps()) {
+            if (step.isMultiply()) {
+                return 0;
+            }
+            int turn = step.amount(clock.getHours());
+            farthest = Math.max(farthest, Math.min(turn, clock.getHours() - turn));
+        }
+        int distance = Math.abs(clock.toValue(hour) - clock.toValue(clock.getEnd()));
+        distance = Math.min(distance, clock.getHours() - distance);
+        return farthest == 0 ? 0 : (distance + farthest - 1) / farthest;
+    }
+
+    /**
+     * Returns the hour as the key of the configuration.
+     * @return the hour
+     */
+    @Override
+    public long encode() {
+        return hour;
+    }
+
+    /**
+     * Builds the configuration of the same clock at the hour a key was made from.
+     * @param key a key returned by encode
+     * @return the configuration at that hour
+     */
+    @Override
+    public ClockConfiguration decode(long key) {
+        return new ClockConfiguration(clock, (int) key);
+    }
+
+    /**
+     * Returns the index of the configuration, its hour minus 1.
+     * @return the index of the configuration
+     */
+    @Override
+    public int index() {
+        return hour - 1;
+    }
+
+    /**
+     * Builds the configuration of the same clock at the hour with a given index.
+     * @param index a number from 0 up to the number of hours - 1
+     * @return the configuration at that hour
+     */
+    @Override
+    public ClockConfiguration fromIndex(int index) {
+        return new ClockConfiguration(clock, index + 1);
+    }
+
+    /**
+     * Returns the number of configurations of the clock, one for each hour.
+     * @return the number of hours
+     */
+    @Override
+    public int stateSpaceSize() {
+        return clock.getHours();
+    }
 }
@@ -0,0 +1,184 @@
+package puzzles.clock;
+
+import java.util.function.IntPredicate;
+
+/**
+ * One move of the clock puzzle, either turning the clock by a number of hours or multiplying the hour by a number,
+ * wrapping around the clock. Steps work on the value of an hour on the clock, which is the hour itself except for
+ * the last hour, which is 0.
+ *
+ * @author Luke Chelius
+ */
+public class ClockStep {
+
+    /**
+     * True if the step multiplies the hour, false if it adds to it.
+     */
+    private final boolean multiply;
+
+    /**
+     * The number added to or multiplied with the hour.
+     */
+    private final int amount;
+
+    /**
+     * Creates a new step.
+     * @param multiply true if the step multiplies the hour, false if it adds to it
+     * @param amount the number added to or multiplied with the hour
+     */
+    public ClockStep(boolean multiply, int amount) {
+        this.multiply = multiply;
+        this.amount = amount;
+    }
+
+    /**
+     * Reads a step written as +k, -k or *m, for example +5 or *2.
+     * @param step the written step
+     * @return the step
+     * @throws NumberFormatException if the step isn't written in one of those forms
+     */
+    public static ClockStep parse(String step) {
+        if (step.startsWith("*") || step.startsWith("x")) {
+            return new ClockStep(true, Integer.parseInt(step.substring(1)));
+        }
+        if (step.startsWith("+")) {
+            return new ClockStep(false, Integer.parseInt(step.substring(1)));
+        }
+        if (step.startsWith("-")) {
+            return new ClockStep(false, Math.negateExact(Integer.parseInt(step.substring(1))));
+        }
+        throw new NumberFormatException("For step: \"" + step + "\"");
+    }
+
+    /**
+     * Returns true if the step multiplies the hour, false if it adds to it.
+     * @return true for a multiply step
+     */
+    public boolean isMultiply() {
+        return multiply;
+    }
+
+    /**
+     * Returns the number the step adds to or multiplies the hour by on a clock, which for a turn is the number of
+     * hours it turns the clock forward.
+     * @param hours the number of hours on the clock
+     * @return the number mod hours, between 0 and hours - 1
+     */
+    public int amount(int hours) {
+        return Math.floorMod(amount, hours);
+    }
+
+    /**
+     * Returns the value of the hour after taking the step.
+     * @param value the value of the hour before, between 0 and hours - 1
+     * @param hours the number of hours on the clock
+     * @return the value of the hour after
+     */
+    public int apply(int value, int hours) {
+        if (multiply) {
+            return (int) Math.floorMod((long) value * amount, (long) hours);
+        }
+        return (int) (((long) value + amount(hours)) % hours);
+    }
+
+    /**
+     * Goes through every value of the hour that this step turns into a given value, in increasing order, until
+     * one is accepted. Turning the clock has exactly one, multiplying has one for every multiple of the clock
+     * the product can wrap around, which is the gcd of the number and the hours, or none at all.
+     * @param value the value of the hour after the step, between 0 and hours - 1
+     * @param hours the number of hours on the clock
+     * @param accept tests each value before the step, returns true to stop at it
+     * @return the first value that was accepted, or -1 if none was
+     */
+    public int findInverse(int value, int hours, IntPredicate accept) {
+        if (!multiply) {
+            int before = (int) (((long) value - amount(hours) + hours) % hours);
+            return accept.test(before) ? before : -1;
+        }
+
+        // Solves value = before * amount mod hours, which has gcd solutions spaced hours / gcd apart when the gcd
+        // divides value
+        long factor = amount(hours);
+        long gcd = gcd(factor, hours);
+        if (value % gcd != 0) {
+            return -1;
+        }
+        long period = hours / gcd;
+        long first = period == 1 ? 0 : (value / gcd) % period * inverse(factor / gcd, period) % period;
+        for (long before = first; before < hours; before += period) {
+            if (accept.test((int) before)) {
+                return (int) before;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the greatest common divisor of two non-negative numbers, the other one if either is 0.
+     * @param a the first number
+     * @param b the second number
+     * @return the gcd of a and b
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
+
+    /**
+     * Returns the inverse of a number modulo another, found with the extended Euclidean algorithm.
+     * @param a the number, which has to have no common factor with modulus
+     * @param modulus the modulus, more than 1
+     * @return the number that gives 1 when multiplied with a, between 0 and modulus - 1
+     */
+    private static long inverse(long a, long modulus) {
+        long oldR = a;
+        long r = modulus;
+        long oldS = 1;
+        long s = 0;
+        while (r != 0) {
+            long quotient = oldR / r;
+            long next = oldR - quotient * r;
+            oldR = r;
+            r = next;
+            next = oldS - quotient * s;
+            oldS = s;
+            s = next;
+        }
+        return Math.floorMod(oldS, modulus);
+    }
+
+    /**
+     * Checks if another object is a step of the same kind with the same number.
+     * @param o the other object
+     * @return true if the steps are the same, false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof ClockStep other) {
+            return multiply == other.multiply && amount == other.amount;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code made from the kind of step and its number.
+     * @return the step's hash code
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Boolean.hashCode(multiply) + amount;
+    }
+
+    /**
+     * Returns the step written the way parse reads it.
+     * @return the step as a String
+     */
+    @Override
+    public String toString() {
+        return multiply ? "*" + amount : (amount < 0 ? "" : "+") + amount;
+    }
+}
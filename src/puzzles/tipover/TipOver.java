@@ -1,7 +1,9 @@
 package puzzles.tipover;
 
 import puzzles.tipover.model.TipOverConfig;
+import solver.SolutionPath;
 import solver.Solver;
+import util.Coordinates;
 
 import java.io.*;
 import java.util.LinkedList;
@@ -15,6 +17,23 @@ import java.util.*;
  */
 public class TipOver {
 
+    /**
+     * The directions the tipper can move and towers can be tipped in, given as {row change, col change}, in the
+     * order north, south, east, west.
+     */
+    public static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, 1}, {0, -1}};
+
+    /**
+     * The compass direction of each entry in DIRECTIONS, whose ordinals number the moves of a solution path.
+     */
+    public static final Coordinates.Direction[] COMPASS = {Coordinates.Direction.NORTH, Coordinates.Direction.SOUTH,
+            Coordinates.Direction.EAST, Coordinates.Direction.WEST};
+
+    /**
+     * The largest board, in spaces, whose occupied spaces fit in the bits of a long.
+     */
+    public static final int BITBOARD_SPACES = 64;
+
     /**
      * The number of rows in the game board.
      */
@@ -40,6 +59,39 @@ public class TipOver {
      */
     private String[][] startBoard;
 
+    /**
+     * The towers on the starting board, each one given as {row, col, height}.
+     */
+    private int[][] towers;
+
+    /**
+     * The height on every space of the starting board, at index row * numCols + col.
+     */
+    private byte[] startSpaces;
+
+    /**
+     * The spaces a tower covers when it tips, as a bitmask, at index
+     * ((row * numCols + col) * 4 + direction) * (maxHeight + 1) + height. 0 where the tower would fall off the
+     * board, and null if the board has more than BITBOARD_SPACES spaces.
+     */
+    private long[] rayMasks;
+
+    /**
+     * A random key for every height on every space, at index space * (maxHeight + 1) + height,
+     * xor'd together with the tipper's key to hash a configuration.
+     */
+    private long[] heightKeys;
+
+    /**
+     * A random key for every space the tipper can be on, by space.
+     */
+    private long[] tipperKeys;
+
+    /**
+     * The tallest height on the starting board, no space can ever be taller.
+     */
+    private int maxHeight;
+
     /**
      * Creates a new TipOver object.
      * @param numRows the number of rows in the board
@@ -54,6 +106,48 @@ public class TipOver {
         this.startCoord = startCoord;
         this.endCoord = endCoord;
         this.startBoard = startBoard;
+
+        // Reads the heights once and finds every space on the starting board that holds a tower that can be tipped
+        List<int[]> found = new ArrayList<>();
+        this.startSpaces = new byte[numRows * numCols];
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                int height = Integer.parseInt(startBoard[i][j]);
+                startSpaces[i * numCols + j] = (byte) height;
+                if (height > 1) {
+                    found.add(new int[]{i, j, height});
+                }
+            }
+        }
+        this.towers = found.toArray(new int[0][]);
+
+        // Makes the hashing keys, always from the same seed so hashes are the same from run to run
+        this.maxHeight = 1;
+        for (int[] tower : towers) {
+            maxHeight = Math.max(maxHeight, tower[2]);
+        }
+        SplittableRandom random = new SplittableRandom(0x5EED_7100L);
+        this.heightKeys = random.longs((long) numRows * numCols * (maxHeight + 1)).toArray();
+        this.tipperKeys = random.longs((long) numRows * numCols).toArray();
+
+        // Works out the spaces every tower could fall across from every space, if the board fits in a long
+        if (numRows * numCols <= BITBOARD_SPACES) {
+            this.rayMasks = new long[numRows * numCols * DIRECTIONS.length * (maxHeight + 1)];
+            for (int space = 0; space < numRows * numCols; space++) {
+                for (int d = 0; d < DIRECTIONS.length; d++) {
+                    long mask = 0;
+                    for (int height = 1; height <= maxHeight; height++) {
+                        int row = space / numCols + DIRECTIONS[d][0] * height;
+                        int col = space % numCols + DIRECTIONS[d][1] * height;
+                        if (row < 0 || row >= numRows || col < 0 || col >= numCols) {
+                            break;
+                        }
+                        mask |= 1L << (row * numCols + col);
+                        rayMasks[(space * DIRECTIONS.length + d) * (maxHeight + 1) + height] = mask;
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -96,11 +190,65 @@ public class TipOver {
         return startBoard;
     }
 
+    /**
+     * Returns the towers on the starting board in row major order, each one given as {row, col, height}.
+     * @return the towers of the puzzle
+     */
+    public int[][] getTowers() {
+        return towers;
+    }
+
+    /**
+     * Returns the height on every space of the starting board, at index row * numCols + col.
+     * @return the starting heights, which must not be changed
+     */
+    public byte[] getStartSpaces() {
+        return startSpaces;
+    }
+
+    /**
+     * Checks if the board is small enough for its occupied spaces to be kept as the bits of a long.
+     * @return true if rayMask can be used, false otherwise
+     */
+    public boolean hasBitboards() {
+        return rayMasks != null;
+    }
+
+    /**
+     * Returns the spaces a tower covers when it tips from a space in a direction, as a bitmask.
+     * @param space the space the tower stands on, row * numCols + col
+     * @param direction the index in DIRECTIONS it tips in
+     * @param height the height of the tower
+     * @return the bits of the spaces it falls across, or 0 if it would fall off the board
+     */
+    public long rayMask(int space, int direction, int height) {
+        return rayMasks[(space * DIRECTIONS.length + direction) * (maxHeight + 1) + height];
+    }
+
+    /**
+     * Returns the hashing key for a space holding a height.
+     * @param space the space, row * numCols + col
+     * @param height the height on the space, 0 for empty
+     * @return the key
+     */
+    public long heightKey(int space, int height) {
+        return heightKeys[space * (maxHeight + 1) + height];
+    }
+
+    /**
+     * Returns the hashing key for the tipper standing on a space.
+     * @param space the space, row * numCols + col
+     * @return the key
+     */
+    public long tipperKey(int space) {
+        return tipperKeys[space];
+    }
+
     /*
      * code to read the file name from the command line and
      * run the solver on the puzzle
      */
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
         // Displays error message if command line args are incorrect
         if ( args.length != 1 ) {
             System.out.println("Usage: java TipOver file");
@@ -130,19 +278,18 @@ public class TipOver {
 
                 // Creates a new solver with a TipOverConfig of the puzzle, staring board, and tipper starting spot
                 Solver<TipOverConfig> solution = new Solver<>(new TipOverConfig(tipOver, grid, start));
-                LinkedList<TipOverConfig> path = solution.solve(true);  // Stores the solution path in a LinkedList
+                SolutionPath<TipOverConfig> path = solution.solvePath(true);  // Stores the start and the moves
+                solution.getStats().writeIfRequested();  // Writes the measurements out if -Dsolver.stats is set
 
                 // If the path is null no solution was found
                 if (path == null) {
                     System.out.println("No Solution");
                 }
-                // Otherwise, print the steps in order
+                // Otherwise, print the steps in order, making each board only as it is printed
                 else {
-                    int step = 0;  // Counter for what step its on
-                    for (TipOverConfig config : path) {
-                        System.out.println("Step " + step + ": \n" + config);  // Prints the step
-                        step++;  // Increments to next step
-                    }
+                    Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+                    path.write(out, " \n");
+                    out.flush();
                 }
             }
             catch (NumberFormatException nfe) {
@@ -0,0 +1,497 @@
+package puzzles.tipover;
+
+import puzzles.tipover.model.TipOverConfig;
+import puzzles.tipover.model.TipOverMacroSolver;
+import puzzles.tipover.model.TipOverModel;
+import solver.AStarSolver;
+import solver.DelayedSolver;
+import solver.EncodedSolver;
+import solver.ExternalSolver;
+import solver.FrontierSolver;
+import solver.ParallelSolver;
+import solver.PartitionedSolver;
+import solver.SolutionPath;
+import solver.Solver;
+import solver.WorkStealingSolver;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Objects;
+
+/**
+ * Measures the different solvers on Tip Over boards so their throughput can be compared between releases.
+ *
+ * @author Luke Chelius
+ */
+public class TipOverBenchmark {
+
+    /**
+     * How long each measurement is repeated for, in nanoseconds, since the sample boards solve very quickly.
+     */
+    private static final long MEASURE_TIME = 1_000_000_000L;
+
+    /**
+     * Reads the starting configuration of a Tip Over puzzle file.
+     * @param file the puzzle file
+     * @return the starting configuration
+     * @throws FileNotFoundException thrown if the file does not exist
+     */
+    private static TipOverConfig load(String file) throws FileNotFoundException {
+        return new TipOverModel(file).getCurrentConfig();
+    }
+
+    /**
+     * Solves the board with the sequential Solver, then with the ParallelSolver on 1 up to maxThreads threads,
+     * doubling the thread count each time, and prints the expansion throughput of each run. Each thread count
+     * reuses one ParallelSolver for every round, which also checks that solving again gives the same path.
+     * @param file the puzzle file
+     * @param maxThreads the largest number of threads to measure
+     * @throws FileNotFoundException thrown if the file does not exist
+     */
+    private static void parallel(String file, int maxThreads) throws FileNotFoundException {
+        LinkedList<TipOverConfig> expected = new Solver<>(load(file)).solve(false);
+        int length = expected == null ? -1 : expected.size();
+        System.out.println(file + ": Solver path length " + length);
+
+        double base = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long expanded = 0;
+            long time = 0;
+            ParallelSolver<TipOverConfig> solver = new ParallelSolver<>(load(file), threads);
+            // Repeats the solve until enough time has passed to measure it, the first round warms up the JIT
+            for (int round = 0; time < MEASURE_TIME; round++) {
+                long begin = System.nanoTime();
+                LinkedList<TipOverConfig> path = solver.solve(false);
+                long end = System.nanoTime();
+                if ((path == null ? -1 : path.size()) != length || (path != null && !path.equals(expected))) {
+                    throw new IllegalStateException("ParallelSolver path differs from Solver with "
+                            + threads + " threads");
+                }
+                if (round > 0) {
+                    expanded += solver.getExpanded();
+                    time += end - begin;
+                }
+            }
+            solver.shutdown();
+            double throughput = expanded * 1e9 / time;
+            if (threads == 1) {
+                base = throughput;
+            }
+            System.out.printf("threads %2d: %,.0f expansions/s, speedup %.2f%n", threads, throughput,
+                    throughput / base);
+        }
+    }
+
+    /**
+     * Solves the board with the sequential Solver, then with the WorkStealingSolver on 1 up to maxThreads threads,
+     * doubling the thread count each time. Checks every path is a legal sequence of moves as short as the
+     * Solver's, and prints the expansion throughput of each run with how often a configuration was reached again
+     * by a shorter path and how often a compare-and-set lost a race, averaged per solve.
+     * @param file the puzzle file
+     * @param maxThreads the largest number of threads to measure
+     * @throws FileNotFoundException thrown if the file does not exist
+     */
+    private static void contention(String file, int maxThreads) throws FileNotFoundException {
+        LinkedList<TipOverConfig> expected = new Solver<>(load(file)).solve(false);
+        int length = expected == null ? -1 : expected.size();
+        System.out.println(file + ": Solver path length " + length);
+
+        double base = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long expanded = 0;
+            long improved = 0;
+            long retries = 0;
+            long time = 0;
+            int rounds = 0;
+            WorkStealingSolver<TipOverConfig> solver = new WorkStealingSolver<>(load(file), threads);
+            // Repeats the solve until enough time has passed to measure it, the first round warms up the JIT
+            for (int round = 0; time < MEASURE_TIME; round++) {
+                long begin = System.nanoTime();
+                LinkedList<TipOverConfig> path = solver.solve(false);
+                long end = System.nanoTime();
+                if ((path == null ? -1 : path.size()) != length) {
+                    throw new IllegalStateException("WorkStealingSolver path length differs from Solver with "
+                            + threads + " threads");
+                }
+                for (int i = 1; path != null && i < path.size(); i++) {
+                    if (!path.get(i - 1).getNeighbors().contains(path.get(i))) {
+                        throw new IllegalStateException("WorkStealingSolver path has an illegal move with "
+                                + threads + " threads");
+                    }
+                }
+                if (round > 0) {
+                    expanded += solver.getExpanded();
+                    improved += solver.getImproved();
+                    retries += solver.getCasRetries();
+                    time += end - begin;
+                    rounds++;
+                }
+            }
+            solver.shutdown();
+            double throughput = expanded * 1e9 / time;
+            if (threads == 1) {
+                base = throughput;
+            }
+            System.out.printf("threads %2d: %,.0f expansions/s, speedup %.2f, %.1f improved, %.1f CAS retries "
+                    + "per solve%n", threads, throughput, throughput / base, (double) improved / rounds,
+                    (double) retries / rounds);
+        }
+    }
+
+    /**
+     * Solves each board with the Solver, then with the PartitionedSolver on 1 up to maxWorkers workers, doubling
+     * the worker count each time. Checks every path is a legal sequence of moves as short as the Solver's, and
+     * prints how long each solve took and how many batches the workers sent each other.
+     * @param files the puzzle files
+     * @param maxWorkers the largest number of workers to measure
+     * @throws FileNotFoundException thrown if a file does not exist
+     */
+    private static void partitioned(String[] files, int maxWorkers) throws FileNotFoundException {
+        for (String file : files) {
+            LinkedList<TipOverConfig> expected = new Solver<>(load(file)).solve(false);
+            int length = expected == null ? -1 : expected.size() - 1;
+            System.out.println(file + ": " + length + " moves");
+            for (int workers = 1; workers <= maxWorkers; workers *= 2) {
+                PartitionedSolver<TipOverConfig> solver = new PartitionedSolver<>(load(file), workers);
+                long begin = System.nanoTime();
+                LinkedList<TipOverConfig> path = solver.solve(false);
+                long end = System.nanoTime();
+                if ((path == null ? -1 : path.size() - 1) != length) {
+                    throw new IllegalStateException("PartitionedSolver path length differs from Solver with "
+                            + workers + " workers on " + file);
+                }
+                for (int i = 1; path != null && i < path.size(); i++) {
+                    if (!path.get(i - 1).getNeighbors().contains(path.get(i))) {
+                        throw new IllegalStateException("PartitionedSolver path has an illegal move with "
+                                + workers + " workers on " + file);
+                    }
+                }
+                System.out.printf("workers %2d: %.2f ms, %d batches%n", workers, (end - begin) / 1e6,
+                        solver.getBatches());
+            }
+        }
+    }
+
+    /**
+     * Solves each board with breadth first search and with A*, checks that both paths have the same length,
+     * and prints how many configurations each one expanded.
+     * @param files the puzzle files
+     * @throws FileNotFoundException thrown if a file does not exist
+     */
+    private static void astar(String[] files) throws FileNotFoundException {
+        for (String file : files) {
+            ParallelSolver<TipOverConfig> bfs = new ParallelSolver<>(load(file), 1);
+            LinkedList<TipOverConfig> expected = bfs.solve(false);
+            bfs.shutdown();
+            AStarSolver<TipOverConfig> aStar = new AStarSolver<>(load(file));
+            LinkedList<TipOverConfig> path = aStar.solve(false);
+
+            int length = expected == null ? -1 : expected.size() - 1;
+            if ((path == null ? -1 : path.size() - 1) != length) {
+                throw new IllegalStateException("A* path length differs from BFS on " + file);
+            }
+            System.out.printf("%s: %d moves, BFS expanded %d, A* expanded %d%n", file, length, bfs.getExpanded(),
+                    aStar.getExpanded());
+        }
+    }
+
+    /**
+     * Solves each board with the Solver and the EncodedSolver, checks that both return the same path, and prints
+     * how many bytes of the EncodedSolver's table each visited configuration used.
+     * @param files the puzzle files
+     * @throws FileNotFoundException thrown if a file does not exist
+     */
+    private static void encoded(String[] files) throws FileNotFoundException {
+        for (String file : files) {
+            LinkedList<TipOverConfig> expected = new Solver<>(load(file)).solve(false);
+            EncodedSolver<TipOverConfig> solver = new EncodedSolver<>(load(file));
+            LinkedList<TipOverConfig> path = solver.solve(false);
+            if (!Objects.equals(expected, path)) {
+                throw new IllegalStateException("EncodedSolver path differs from Solver on " + file);
+            }
+            System.out.printf("%s: %.1f table bytes per visited config%n", file, solver.bytesPerConfig());
+        }
+    }
+
+    /**
+     * Solves each board with the Solver and the DelayedSolver, repeating each until enough time has passed to
+     * measure it, checks that both paths have the same length, and prints the expansion throughput of both. Java
+     * can't read the cache miss counters, so it also prints what stands in for them: the Solver makes one random
+     * hash table probe per neighbor, where the DelayedSolver reads its sorted levels in order, so the bytes it
+     * scans per neighbor are printed along with the bytes each visited configuration takes.
+     * @param files the puzzle files
+     * @throws FileNotFoundException thrown if a file does not exist
+     */
+    private static void delayed(String[] files) throws FileNotFoundException {
+        for (String file : files) {
+            LinkedList<TipOverConfig> expected = new Solver<>(load(file)).solve(false);
+            int length = expected == null ? -1 : expected.size() - 1;
+
+            long[] expanded = new long[2];
+            long[] time = new long[2];
+            long probes = 0;
+            int rounds = 0;
+            long scanned = 0;
+            double bytesPerConfig = 0;
+            // Alternates the solvers until both have run long enough, the first round warms up the JIT
+            for (int round = 0; time[0] < MEASURE_TIME || time[1] < MEASURE_TIME; round++) {
+                Solver<TipOverConfig> bfs = new Solver<>(load(file));
+                long begin = System.nanoTime();
+                bfs.solve(false);
+                long middle = System.nanoTime();
+                DelayedSolver<TipOverConfig> solver = new DelayedSolver<>(load(file));
+                LinkedList<TipOverConfig> path = solver.solve(false);
+                long end = System.nanoTime();
+
+                if ((path == null ? -1 : path.size() - 1) != length) {
+                    throw new IllegalStateException("DelayedSolver path length differs from Solver on " + file);
+                }
+                for (int i = 1; path != null && i < path.size(); i++) {
+                    if (!path.get(i - 1).getNeighbors().contains(path.get(i))) {
+                        throw new IllegalStateException("DelayedSolver path has an illegal move on " + file);
+                    }
+                }
+                if (round > 0) {
+                    expanded[0] += bfs.getStats().getExpanded();
+                    expanded[1] += solver.getExpanded();
+                    time[0] += middle - begin;
+                    time[1] += end - middle;
+                    probes += bfs.getStats().getTotalConfigs() - 1;
+                    rounds++;
+                    scanned += solver.getBytesScanned();
+                    bytesPerConfig = solver.bytesPerConfig();
+                }
+            }
+            System.out.printf("%s: %d moves; Solver %,.0f expansions/s, %d hash probes per solve; DelayedSolver "
+                    + "%,.0f expansions/s, %.0f bytes scanned in order per solve, %.1f bytes per visited config%n",
+                    file, length, expanded[0] * 1e9 / time[0], probes / rounds,
+                    expanded[1] * 1e9 / time[1], (double) scanned / rounds, bytesPerConfig);
+        }
+    }
+
+    /**
+     * Solves each board with the Solver and with an ExternalSolver whose buffer only holds a few configurations,
+     * so every level is spilled to disk in several runs, and checks that both paths have the same length.
+     * @param files the puzzle files
+     * @throws FileNotFoundException thrown if a file does not exist
+     */
+    private static void external(String[] files) throws FileNotFoundException {
+        for (String file : files) {
+            LinkedList<TipOverConfig> expected = new Solver<>(load(file)).solve(false);
+            long begin = System.nanoTime();
+            LinkedList<TipOverConfig> path = new ExternalSolver<>(load(file), 16).solve(false);
+            long end = System.nanoTime();
+
+            int length = expected == null ? -1 : expected.size() - 1;
+            if ((path == null ? -1 : path.size() - 1) != length) {
+                throw new IllegalStateException("ExternalSolver path length differs from Solver on " + file);
+            }
+            System.out.printf("%s: %d moves in %.1f ms%n", file, length, (end - begin) / 1e6);
+        }
+    }
+
+    /**
+     * Solves each board with the Solver and the FrontierSolver, checks that both paths have the same length and
+     * that the frontier path is a legal sequence of moves, and prints how many configurations the Solver's
+     * predecessor map held against the most the FrontierSolver's three levels held, with the time each took and
+     * how many searches rebuilding the path took.
+     * @param files the puzzle files
+     * @throws FileNotFoundException thrown if a file does not exist
+     */
+    private static void frontier(String[] files) throws FileNotFoundException {
+        for (String file : files) {
+            Solver<TipOverConfig> bfs = new Solver<>(load(file));
+            long begin = System.nanoTime();
+            LinkedList<TipOverConfig> expected = bfs.solve(false);
+            long middle = System.nanoTime();
+            FrontierSolver<TipOverConfig> solver = new FrontierSolver<>(load(file));
+            LinkedList<TipOverConfig> path = solver.solve(false);
+            long end = System.nanoTime();
+
+            int length = expected == null ? -1 : expected.size() - 1;
+            if ((path == null ? -1 : path.size() - 1) != length) {
+                throw new IllegalStateException("FrontierSolver path length differs from Solver on " + file);
+            }
+            for (int i = 1; path != null && i < path.size(); i++) {
+                if (!path.get(i - 1).getNeighbors().contains(path.get(i))) {
+                    throw new IllegalStateException("FrontierSolver path has an illegal move on " + file);
+                }
+            }
+            System.out.printf("%s: %d moves; Solver held %d configs in %.2f ms; FrontierSolver held at most %d in "
+                    + "%.2f ms over %d searches%n", file, length, bfs.getStats().getUniqueConfigs(),
+                    (middle - begin) / 1e6, solver.getPeakLevels(), (end - middle) / 1e6, solver.getSearches());
+        }
+    }
+
+    /**
+     * Solves each board with the Solver and the TipOverMacroSolver, with and without pruning dominated orderings
+     * of commuting tips, checks that every path has the same length and that the macro paths are legal sequences
+     * of moves, and prints how many states each one visited.
+     * @param files the puzzle files
+     * @throws FileNotFoundException thrown if a file does not exist
+     */
+    private static void macro(String[] files) throws FileNotFoundException {
+        for (String file : files) {
+            Solver<TipOverConfig> bfs = new Solver<>(load(file));
+            LinkedList<TipOverConfig> expected = bfs.solve(false);
+            int length = expected == null ? -1 : expected.size() - 1;
+            int[] visited = new int[2];
+            // Solves with every ordering of commuting tips, then pruning the dominated ones
+            for (int prune = 0; prune < 2; prune++) {
+                TipOverMacroSolver solver = new TipOverMacroSolver(load(file));
+                solver.setPruneDominated(prune == 1);
+                LinkedList<TipOverConfig> path = solver.solve(false);
+                if ((path == null ? -1 : path.size() - 1) != length) {
+                    throw new IllegalStateException("TipOverMacroSolver path length differs from Solver on " + file);
+                }
+                for (int i = 1; path != null && i < path.size(); i++) {
+                    if (!path.get(i - 1).getNeighbors().contains(path.get(i))) {
+                        throw new IllegalStateException("TipOverMacroSolver path has an illegal move on " + file);
+                    }
+                }
+                visited[prune] = solver.getUniqueConfigs();
+            }
+            System.out.printf("%s: %d moves, Solver visited %d configs, macro solver visited %d states, %d pruning "
+                    + "dominated orderings%n", file, length, bfs.getStats().getUniqueConfigs(), visited[0],
+                    visited[1]);
+        }
+    }
+
+    /**
+     * Makes unsolvable variants of each board by moving the goal to every empty space the tipper can never reach,
+     * keeping the board itself if it is unsolvable, then solves them all with a plain Solver and with one that
+     * prunes dead ends. Prints how many variants were rejected without searching and the states and time each
+     * solver took over all of them. Every variant is solved once first to warm up the JIT.
+     * @param files the puzzle files
+     * @throws FileNotFoundException thrown if a file does not exist
+     */
+    private static void unsolvable(String[] files) throws FileNotFoundException {
+        for (int round = 0; round < 2; round++) {
+            for (String file : files) {
+                TipOverConfig config = load(file);
+                String[][] board = config.getBoard();
+                int[] start = config.getCurrentPos();
+                int[] end = config.getEndPos();
+                int variants = 0;
+                int rejected = 0;
+                long[] visited = new long[2];
+                long[] time = new long[2];
+                for (int row = 0; row < board.length; row++) {
+                    for (int col = 0; col < board[row].length; col++) {
+                        if (!board[row][col].equals("0") && (row != end[0] || col != end[1])) {
+                            continue;
+                        }
+                        TipOver variant = new TipOver(board.length, board[row].length, start, new int[]{row, col},
+                                board);
+                        TipOverConfig variantStart = new TipOverConfig(variant, board, start);
+
+                        // Solves the variant without pruning, then with it
+                        int[] lengths = new int[2];
+                        long[] variantVisited = new long[2];
+                        long[] variantTime = new long[2];
+                        for (int prune = 0; prune < 2; prune++) {
+                            Solver<TipOverConfig> solver = new Solver<>(variantStart);
+                            solver.setPruneDeadEnds(prune == 1);
+                            long begin = System.nanoTime();
+                            LinkedList<TipOverConfig> path = solver.solve(false);
+                            variantTime[prune] = System.nanoTime() - begin;
+                            variantVisited[prune] = solver.getStats().getUniqueConfigs();
+                            lengths[prune] = path == null ? -1 : path.size();
+                        }
+                        if (lengths[0] != lengths[1]) {
+                            throw new IllegalStateException("Pruning changed the result on " + file
+                                    + " with the goal at " + row + " " + col);
+                        }
+                        if (lengths[0] == -1) {
+                            variants++;
+                            rejected += variantStart.isDeadEnd() ? 1 : 0;
+                            for (int prune = 0; prune < 2; prune++) {
+                                visited[prune] += variantVisited[prune];
+                                time[prune] += variantTime[prune];
+                            }
+                        }
+                    }
+                }
+                if (round > 0) {
+                    System.out.printf("%s: %d unsolvable goals, %d rejected at the start; plain visited %d in "
+                            + "%.2f ms, pruned visited %d in %.2f ms%n", file, variants, rejected, visited[0],
+                            time[0] / 1e6, visited[1], time[1] / 1e6);
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves each board, turns the path into a SolutionPath and checks that every step got at random from the back,
+     * every step of the iterator and the written steps match the path, then prints how many bytes the moves take.
+     * @param files the puzzle files
+     * @throws IOException thrown if a file does not exist
+     */
+    private static void path(String[] files) throws IOException {
+        for (String file : files) {
+            LinkedList<TipOverConfig> expected = new Solver<>(load(file)).solve(false);
+            SolutionPath<TipOverConfig> path = SolutionPath.of(expected);
+            if (path == null) {
+                System.out.println(file + ": no solution");
+                continue;
+            }
+            for (int i = path.size() - 1; i >= 0; i--) {
+                if (!path.get(i).equals(expected.get(i))) {
+                    throw new IllegalStateException("SolutionPath step " + i + " differs on " + file);
+                }
+            }
+            Iterator<TipOverConfig> configs = path.iterator();
+            StringBuilder printed = new StringBuilder();
+            int step = 0;
+            for (TipOverConfig config : expected) {
+                if (!config.equals(configs.next())) {
+                    throw new IllegalStateException("SolutionPath iterator differs at step " + step + " on " + file);
+                }
+                printed.append("Step ").append(step++).append(": \n").append(config).append(System.lineSeparator());
+            }
+            StringBuilder written = new StringBuilder();
+            path.write(written, " \n");
+            if (configs.hasNext() || !written.toString().equals(printed.toString())) {
+                throw new IllegalStateException("SolutionPath output differs on " + file);
+            }
+            System.out.printf("%s: %d moves in %d bytes%n", file, path.getLength(), path.movesBytes());
+        }
+    }
+
+    /**
+     * Runs a benchmark.
+     * @param args [0]: the benchmark to run (parallel, contention, partitioned, astar, encoded, delayed, external,
+     *             frontier, macro, unsolvable or path);
+     *             [1]: the puzzle file, every benchmark but parallel and contention accepts several, and
+     *             partitioned solves each one with 1 up to 8 workers;
+     *             [2]: optional largest thread count for parallel, defaults to the number of processors, and for
+     *             contention, defaults to 32.
+     * @throws IOException thrown if the file does not exist
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java TipOverBenchmark parallel|contention file [threads]");
+            System.out.println("       java TipOverBenchmark partitioned|astar|encoded|delayed|external|frontier|"
+                    + "macro|unsolvable|path file...");
+            return;
+        }
+        switch (args[0]) {
+            case "parallel" -> parallel(args[1], args.length > 2 ? Integer.parseInt(args[2])
+                    : Runtime.getRuntime().availableProcessors());
+            case "contention" -> contention(args[1], args.length > 2 ? Integer.parseInt(args[2]) : 32);
+            case "partitioned" -> partitioned(Arrays.copyOfRange(args, 1, args.length), 8);
+            case "astar" -> astar(Arrays.copyOfRange(args, 1, args.length));
+            case "encoded" -> encoded(Arrays.copyOfRange(args, 1, args.length));
+            case "delayed" -> delayed(Arrays.copyOfRange(args, 1, args.length));
+            case "external" -> external(Arrays.copyOfRange(args, 1, args.length));
+            case "frontier" -> frontier(Arrays.copyOfRange(args, 1, args.length));
+            case "macro" -> macro(Arrays.copyOfRange(args, 1, args.length));
+            case "unsolvable" -> unsolvable(Arrays.copyOfRange(args, 1, args.length));
+            case "path" -> path(Arrays.copyOfRange(args, 1, args.length));
+            default -> System.out.println("Unknown benchmark: " + args[0]);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package puzzles.tipover.gui;
 
 import javafx.application.Application;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -10,7 +11,11 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import puzzles.tipover.model.TipOverConfig;
 import puzzles.tipover.model.TipOverModel;
+import solver.DistanceTable;
+import solver.SolveBudget;
+import solver.SolveResult;
 import util.Observer;
 
 import java.io.File;
@@ -48,6 +53,11 @@ public class TipOverGUI extends Application
      */
     private GridPane board;
 
+    /**
+     * The budget of the hint search running in the background, null if none is.
+     */
+    private SolveBudget hintBudget;
+
     /**
      * Initializes the current file variable and model, adding it to the observers if a file is given to
      * initialize the model, otherwise it makes both null.
@@ -63,6 +73,7 @@ public class TipOverGUI extends Application
             this.currentFile = args.get(0);  // Set current file to the arg
             this.model = new TipOverModel(this.currentFile);  // Creates the model from the puzzle file
             this.model.addObserver(this);  // Adds the model to the observers
+            this.model.precomputeDistances();  // Works out the moves left from every config in the background
         }
         // Otherwise, set the model and file name to null
         else {
@@ -97,6 +108,7 @@ public class TipOverGUI extends Application
                     this.currentFile = String.valueOf(selectedFile);  // Sets current file to the selected one
                     this.model = new TipOverModel(this.currentFile);  // Creates a model with the file
                     this.model.addObserver(this);  // Adds the model to the observers
+                    this.model.precomputeDistances();  // Works out the moves left in the background
                     break;
                 }
                 catch (FileNotFoundException | IllegalArgumentException | ArrayIndexOutOfBoundsException ignored) {}
@@ -227,19 +239,30 @@ public class TipOverGUI extends Application
             if (model.getCurrentConfig().isSolution()) {
                 instructions.setText(" You won! No more moves are needed.");
             }
+            // Only one search runs at a time
+            else if (hintBudget != null) {
+                instructions.setText(" Still searching for a hint.");
+            }
             else {
-                boolean[] bools = model.hint();  // Holds if the board is solvable and if a tower was tipped
-                // If a tower was tipped display that
-                if (bools[1]) {
-                    instructions.setText(" A tower has been tipped over.");
+                // Makes the next move right away if it is known, otherwise searches for it in the background
+                SolveResult<TipOverConfig> cached = model.cachedHint();
+                if (cached != null) {
+                    showHint(model.applyHint(model.getCurrentConfig(), cached));
                 }
-                // If the board is unsolvable say that
-                if (!bools[0]) {
-                    instructions.setText(" Unsolvable board");
+                else {
+                    searchHint();
                 }
             }
         });
 
+        Button cancel = new Button("CANCEL");  // Cancel button - stops searching for a hint
+        cancel.setOnAction(event -> {
+            if (hintBudget != null) {
+                cancelHint();
+                instructions.setText(" Hint cancelled.");
+            }
+        });
+
         Button load = new Button("LOAD");  // Load button - load a new file
         load.setOnAction(event -> {
             FileChooser fileChooser = new FileChooser();  // Create a new file chooser
@@ -250,6 +273,7 @@ public class TipOverGUI extends Application
                     new FileChooser.ExtensionFilter("Text Files", "*.txt"));
             selectedFile = fileChooser.showOpenDialog(stage);  // Holds the selected file
             try {
+                cancelHint();  // A hint for the old puzzle is no use
                 stage.hide();
                 this.model = this.model.load(String.valueOf(selectedFile));  // reassigns model to new model
                 this.model.addObserver(this);  // Adds model to observers
@@ -281,6 +305,7 @@ public class TipOverGUI extends Application
 
         Button reload = new Button("RELOAD");  // Reload button - reloads same file
         reload.setOnAction(event -> {
+            cancelHint();  // A hint for the old puzzle is no use
             try {
                 this.model = this.model.load(currentFile);  // Sets model to new model with file
                 this.model.addObserver(this);  // Adds model to observers
@@ -295,7 +320,7 @@ public class TipOverGUI extends Application
             displayBoard();  // Places towers, tipper, and end point on the board
         });
 
-        options.getChildren().addAll(hint, load, reload);  // Adds hint, load, and reload buttons to HBox
+        options.getChildren().addAll(hint, cancel, load, reload);  // Adds the option buttons to HBox
         buttons.getChildren().add(options);  // Adds the HBox of options to the buttons HBox
         options.setAlignment(Pos.CENTER_RIGHT);  // Aligns the HBox to the right center
 
@@ -308,6 +333,82 @@ public class TipOverGUI extends Application
         stage.show();  // Shows the stage
     }
 
+    /**
+     * Searches for a hint from the current config on a background thread, so the window keeps responding, then
+     * makes its move back on the JavaFX thread. The result is dropped if the search was cancelled or a puzzle was
+     * loaded in the meantime.
+     */
+    private void searchHint() {
+        TipOverModel searched = model;
+        TipOverConfig from = model.getCurrentConfig();
+        SolveBudget budget = new SolveBudget().withTimeLimit(TipOverModel.HINT_TIME_LIMIT);
+        Task<SolveResult<TipOverConfig>> search = new Task<>() {
+            @Override
+            protected SolveResult<TipOverConfig> call() {
+                return TipOverModel.searchHint(from, budget);
+            }
+        };
+        search.setOnSucceeded(event -> {
+            if (hintBudget == budget && searched == model) {
+                hintBudget = null;
+                boolean moved = !from.equals(model.getCurrentConfig());
+                showHint(model.applyHint(from, search.getValue()));
+                // The hint is for where the tipper was, so its move wasn't made
+                if (moved && search.getValue().getStatus() == SolveResult.Status.SOLVED) {
+                    instructions.setText(" The tipper moved while searching, ask for another hint.");
+                }
+            }
+        });
+        search.setOnFailed(event -> {
+            if (hintBudget == budget) {
+                hintBudget = null;
+                instructions.setText(" No hint found, the search failed.");
+            }
+        });
+
+        hintBudget = budget;
+        instructions.setText(" Searching for a hint...");
+        Thread thread = new Thread(search, "tipover-hint");
+        thread.setDaemon(true);  // Doesn't keep the program running if the user quits first
+        thread.start();
+    }
+
+    /**
+     * Stops the hint search running in the background, if there is one.
+     */
+    private void cancelHint() {
+        if (hintBudget != null) {
+            hintBudget.cancel();
+            hintBudget = null;
+        }
+    }
+
+    /**
+     * Tells the user what came of a hint.
+     * @param result the result of the hint
+     */
+    private void showHint(SolveResult<TipOverConfig> result) {
+        // If a tower was tipped display that
+        if (model.hintTipped()) {
+            instructions.setText(" A tower has been tipped over.");
+        }
+        // If the board is unsolvable or the search took too long say that
+        if (result.getStatus() == SolveResult.Status.UNSOLVABLE) {
+            instructions.setText(" Unsolvable board");
+        }
+        else if (result.getStatus() == SolveResult.Status.BUDGET_EXHAUSTED) {
+            instructions.setText(" No hint found, the search " + result.getReason());
+        }
+    }
+
+    /**
+     * Stops any hint search when the window closes.
+     */
+    @Override
+    public void stop() {
+        cancelHint();
+    }
+
     /**
      * Populates the board grid pane with the locations of the towers (represented by numbers), the tipper
      * (a red highlighted spot), and the end point (a green highlighted spot).
@@ -358,8 +459,13 @@ public class TipOverGUI extends Application
         if (model.getCurrentConfig().isSolution()) {
             instructions.setText(" YOU WON!");
         }
+        // Otherwise, show how many moves are left once the model knows, or why it won't
         else {
-            instructions.setText("");
+            String problem = model.getDistanceProblem();
+            instructions.setText(model.remainingMoves().stream()
+                    .mapToObj(moves -> moves == DistanceTable.UNSOLVABLE ? " The solution can't be reached."
+                            : " Solvable in " + moves + " moves.")
+                    .findFirst().orElse(problem == null ? "" : " Distances unavailable: " + problem));
         }
     }
 
@@ -2,7 +2,9 @@ package puzzles.tipover.model;
 
 import puzzles.tipover.TipOver;
 import solver.*;
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.function.Consumer;
 
 /**
  * Configuration for the TipOver puzzle for the solver algorithm to use.
@@ -10,7 +12,12 @@ import java.util.LinkedList;
  * @author Luke Chelius
  * November 2021
  */
-public class TipOverConfig implements Configuration{
+public class TipOverConfig implements HeuristicConfiguration, EncodableConfiguration {
+
+    /**
+     * The directions a tower can be tipped in, given as {row change, col change}, in the order neighbors are made.
+     */
+    private static final int[][] DIRECTIONS = TipOver.DIRECTIONS;
 
     /**
      * the TipOver puzzle the configuration is for.
@@ -18,14 +25,27 @@ public class TipOverConfig implements Configuration{
     private TipOver tipOver;
 
     /**
-     * The current layout of the board, showing which spaces are occupied by what height towers/crates.
+     * The current layout of the board, the height of the tower/crate on every space at index
+     * row * numCols + col, 0 for empty.
      */
-    private String[][] board;
+    private byte[] spaces;
 
     /**
-     * The current position of the tipper given in [row, col] format.
+     * The space the tipper is on, row * numCols + col.
      */
-    private int[] currentPos;
+    private int tipper;
+
+    /**
+     * A bit for every space that isn't empty, kept only if the puzzle has bitboards, so checking that a tower
+     * has room to tip is one mask instead of a loop.
+     */
+    private long occupied;
+
+    /**
+     * The Zobrist hash of the configuration, the tipper's key xor'd with the key of every space's height. Moves
+     * and tips only change a few spaces, so it is updated as they happen instead of recomputed.
+     */
+    private long hash;
 
     /**
      * Creates a new tip over configuration for a tip over puzzle with a particular game board and location of the
@@ -35,9 +55,27 @@ public class TipOverConfig implements Configuration{
      * @param currentPos the coordinates of the tipper on the board
      */
     public TipOverConfig(TipOver tipOver, String[][] board, int[] currentPos) {
+        this(tipOver, parse(board), currentPos[0] * tipOver.getNumCols() + currentPos[1]);
+    }
+
+    /**
+     * Creates a new tip over configuration from the heights of its spaces, hashing the whole board once. Copies
+     * keep the hash and the occupied bits up to date from here.
+     * @param tipOver the TipOver puzzle the configuration is for
+     * @param spaces the height on every space, which the configuration keeps
+     * @param tipper the space the tipper is on
+     */
+    private TipOverConfig(TipOver tipOver, byte[] spaces, int tipper) {
         this.tipOver = tipOver;
-        this.board = board;
-        this.currentPos = currentPos;
+        this.spaces = spaces;
+        this.tipper = tipper;
+        this.hash = tipOver.tipperKey(tipper);
+        for (int space = 0; space < spaces.length; space++) {
+            hash ^= tipOver.heightKey(space, spaces[space]);
+            if (spaces[space] != 0 && tipOver.hasBitboards()) {
+                occupied |= 1L << space;
+            }
+        }
     }
 
     /**
@@ -47,31 +85,121 @@ public class TipOverConfig implements Configuration{
      */
     public TipOverConfig(TipOverConfig other) {
         this.tipOver = other.tipOver;
-        this.board = new String[other.board.length][other.board[0].length];  // Initializes board to right size
+        this.spaces = other.spaces.clone();
+        this.tipper = other.tipper;
+        this.occupied = other.occupied;
+        this.hash = other.hash;
+    }
 
-        // Copies each row in the old board to the new board
+    /**
+     * Reads the heights off a board of strings.
+     * @param board the board, a string of the height of each space
+     * @return the height of every space, at index row * numCols + col
+     */
+    private static byte[] parse(String[][] board) {
+        int cols = board[0].length;
+        byte[] spaces = new byte[board.length * cols];
         for (int i = 0; i < board.length; i++) {
-            System.arraycopy(other.board[i], 0, this.board[i], 0, this.board[i].length);
+            for (int j = 0; j < cols; j++) {
+                spaces[i * cols + j] = Byte.parseByte(board[i][j]);
+            }
         }
-
-        this.currentPos = new int[2];  // Initializes currentPos to the right size
-        // Copies the old currentPos to the new one
-        System.arraycopy(other.currentPos, 0, this.currentPos, 0, this.currentPos.length);
+        return spaces;
     }
 
     /**
      * Returns the current position of the tipper.
-     * @return the tipper's current position
+     * @return the tipper's current position, a new [row, col] array
      */
     public int[] getCurrentPos() {
-        return currentPos;
+        return new int[]{tipper / tipOver.getNumCols(), tipper % tipOver.getNumCols()};
+    }
+
+    /**
+     * Returns the space the tipper is on.
+     * @return the tipper's space, row * numCols + col
+     */
+    int getTipperSpace() {
+        return tipper;
     }
 
     /**
-     * Returns the board of the configuration, a 2D array of strings.
+     * Checks if a space has nothing on it, so the tipper can't stand there.
+     * @param space the space, row * numCols + col
+     * @return true if the space is empty, false otherwise
+     */
+    boolean isEmpty(int space) {
+        return spaces[space] == 0;
+    }
+
+    /**
+     * Returns the space the tipper has to reach.
+     * @return the goal's space, row * numCols + col
+     */
+    int getGoalSpace() {
+        return tipOver.getEndCoord()[0] * tipOver.getNumCols() + tipOver.getEndCoord()[1];
+    }
+
+    /**
+     * Returns the fewest steps from a space to every other space, walking only on spaces that have something
+     * on them and without tipping anything.
+     * @param from the space to start from, row * numCols + col
+     * @return the steps to each space by index, -1 for the spaces that can't be walked to
+     */
+    int[] walkDistances(int from) {
+        int rows = tipOver.getNumRows();
+        int cols = tipOver.getNumCols();
+        int[] distance = new int[spaces.length];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[spaces.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        distance[from] = 0;
+        while (head < tail) {
+            int space = queue[head++];
+            for (int[] dir : DIRECTIONS) {
+                int nextRow = space / cols + dir[0];
+                int nextCol = space % cols + dir[1];
+                int next = nextRow * cols + nextCol;
+                if (nextRow >= 0 && nextRow < rows && nextCol >= 0 && nextCol < cols && spaces[next] != 0
+                        && distance[next] < 0) {
+                    distance[next] = distance[space] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Checks if two configurations have the same board, wherever their tippers are.
+     * @param other the other configuration
+     * @return true if every space has the same height in both, false otherwise
+     */
+    boolean sameBoard(TipOverConfig other) {
+        return Arrays.equals(spaces, other.spaces);
+    }
+
+    /**
+     * Returns the Zobrist hash of the board without the tipper, so configurations with the same board and the
+     * tipper anywhere hash the same.
+     * @return the hash of the board
+     */
+    long boardHash() {
+        return hash ^ tipOver.tipperKey(tipper);
+    }
+
+    /**
+     * Returns the board of the configuration, a 2D array of strings, built from the heights when it is asked for.
      * @return the config's board
      */
     public String[][] getBoard() {
+        int cols = tipOver.getNumCols();
+        String[][] board = new String[tipOver.getNumRows()][cols];
+        for (int space = 0; space < spaces.length; space++) {
+            board[space / cols][space % cols] = String.valueOf(spaces[space]);
+        }
         return board;
     }
 
@@ -92,12 +220,34 @@ public class TipOverConfig implements Configuration{
     }
 
     /**
-     * Turns the configuration into a unique int that cna be hashed.
-     * @return a unique int that represents the configuration
+     * Turns the configuration into an int that can be hashed, from its Zobrist hash.
+     * @return an int that represents the configuration
      */
     @Override
     public int hashCode() {
-        return currentPos[0] * tipOver.getNumRows() + currentPos[1] * tipOver.getNumCols();
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Sets the height on a space and updates the hash and occupied bits to match.
+     * @param space the space, row * numCols + col
+     * @param height the new height, 0 for empty
+     */
+    private void setSpace(int space, int height) {
+        hash ^= tipOver.heightKey(space, spaces[space]) ^ tipOver.heightKey(space, height);
+        spaces[space] = (byte) height;
+        if (tipOver.hasBitboards()) {
+            occupied = height == 0 ? occupied & ~(1L << space) : occupied | 1L << space;
+        }
+    }
+
+    /**
+     * Moves the tipper and updates the hash to match.
+     * @param space the space to move the tipper to
+     */
+    private void moveTipper(int space) {
+        hash ^= tipOver.tipperKey(tipper) ^ tipOver.tipperKey(space);
+        tipper = space;
     }
 
     /**
@@ -109,21 +259,8 @@ public class TipOverConfig implements Configuration{
     @Override
     public boolean equals(Object o) {
         if (o instanceof TipOverConfig other) {
-            // They are not equal if the tipper is in different spots
-            if (currentPos[0] != other.currentPos[0] || currentPos[1] != other.currentPos[1]) {
-                return false;
-            }
-
-            // They are not equal if the boards are not the same
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[i].length; j++) {
-                    if (!board[i][j].equals(other.board[i][j])) {
-                        return false;
-                    }
-                }
-            }
-
-            return true;  // If the tippers are in the same spot and the boards are the same the configs are equal
+            // They are equal if the hashes, the tippers and the boards are all the same
+            return hash == other.hash && tipper == other.tipper && Arrays.equals(spaces, other.spaces);
         }
 
         return false;
@@ -135,99 +272,97 @@ public class TipOverConfig implements Configuration{
      */
     @Override
     public boolean isSolution() {
-        return currentPos[0] == tipOver.getEndCoord()[0] && currentPos[1] == tipOver.getEndCoord()[1];
+        return tipper == getGoalSpace();
     }
 
     /**
-     * Checks for a possible neighbor above the current space, whether it tips a tower and moves up, moves
-     * to another tower above it, or has no neighbor to the north.
-     * @return the northern neighbor, or null if it doesn't exist
+     * Makes the neighbor in a direction. The tipper steps onto the next space if something is on it, otherwise
+     * if it is on a tower with room to fall that way the tower is tipped and the tipper moves onto its first
+     * crate.
+     * @param d the index in DIRECTIONS to move in
+     * @return the neighbor, or null if the tipper can't move or tip that way
      */
-    public TipOverConfig getNorth() {
-        // Check space above the current position
-        if (currentPos[0] > 0 && !board[currentPos[0] - 1][currentPos[1]].equals("0")) {
+    TipOverConfig neighbor(int d) {
+        int rows = tipOver.getNumRows();
+        int cols = tipOver.getNumCols();
+        int row = tipper / cols;
+        int col = tipper % cols;
+        int step = DIRECTIONS[d][0] * cols + DIRECTIONS[d][1];  // The change in space index for one move
+
+        // Check the next space in that direction
+        int nextRow = row + DIRECTIONS[d][0];
+        int nextCol = col + DIRECTIONS[d][1];
+        if (nextRow >= 0 && nextRow < rows && nextCol >= 0 && nextCol < cols && spaces[tipper + step] != 0) {
             TipOverConfig newConfig = new TipOverConfig(this);  // Creates a copy of the config
-            newConfig.currentPos[0] -= 1;  // Changes the config's tipper position
+            newConfig.moveTipper(tipper + step);  // Changes the config's tipper position
             return newConfig;
         }
-        // If the tipper is on a tower it can be tipped, so check if the tower can actually tip as well
-        // as get to another valid space once tipped
-        if (!board[currentPos[0]][currentPos[1]].equals("1")) {
-            // Variable stores the height of the tower the tipper is on
-            int height = Integer.parseInt(board[currentPos[0]][currentPos[1]]);
-
-            // Finds upper neighbor of a tower
-            if (currentPos[0] - height >= 0) {
-                TipOverConfig newConfig = new TipOverConfig(this);  // Creates a copy of the config
-                // Sets the original tower location to 0 because it is tipped over now
-                newConfig.board[currentPos[0]][currentPos[1]] = "0";
-                boolean canTip = true;  // Boolean to check if there is space to tip the tower
-                // Checks the spaces the tower tips into to see if they are empty
+
+        return tip(tipper, d);
+    }
+
+    /**
+     * Tips the tower on a space in a direction and puts the tipper on its first crate, as if the tipper had
+     * walked to the tower first. The tipper doesn't have to be able to get to the space.
+     * @param from the space of the tower, row * numCols + col
+     * @param d the index in DIRECTIONS to tip it in
+     * @return the configuration after the tip, or null if there is no tower there or no room for it to fall
+     */
+    TipOverConfig tip(int from, int d) {
+        int rows = tipOver.getNumRows();
+        int cols = tipOver.getNumCols();
+        int step = DIRECTIONS[d][0] * cols + DIRECTIONS[d][1];  // The change in space index for one move
+
+        // If there is a tower, check that it lands on the board and every space it falls across is empty
+        int height = spaces[from];
+        if (height > 1) {
+            int row = from / cols;
+            int col = from % cols;
+            int endRow = row + DIRECTIONS[d][0] * height;
+            int endCol = col + DIRECTIONS[d][1] * height;
+            if (endRow < 0 || endRow >= rows || endCol < 0 || endCol >= cols) {
+                return null;
+            }
+            if (tipOver.hasBitboards()) {
+                if ((occupied & tipOver.rayMask(from, d, height)) != 0) {
+                    return null;
+                }
+            }
+            else {
                 for (int i = 1; i <= height; i++) {
-                    // If the space is not empty the tower cannot be tipped
-                    if (!(board[currentPos[0] - i][currentPos[1]]).equals("0")) {
-                        canTip = false;
-                        break;
+                    if (spaces[from + step * i] != 0) {
+                        return null;
                     }
-
-                    newConfig.board[currentPos[0] - i][currentPos[1]] = "1";  // Sets the spot to 1 for tipped tower
                 }
+            }
 
-                // If the tower can be tipped, it adjusts the tipper position to the first spot of the tipped tower
-                // nex to where it originally stood and adds it to the neighbors LinkedList
-                if (canTip) {
-                    newConfig.currentPos[0] -= 1;
-                    return newConfig;
-                }
+            TipOverConfig newConfig = new TipOverConfig(this);  // Creates a copy of the config
+            newConfig.setSpace(from, 0);  // The tower's space is empty now that it is tipped over
+            for (int i = 1; i <= height; i++) {
+                newConfig.setSpace(from + step * i, 1);  // Sets the spot to 1 for tipped tower
             }
+            newConfig.moveTipper(from + step);
+            return newConfig;
         }
         return null;
     }
 
+    /**
+     * Checks for a possible neighbor above the current space, whether it tips a tower and moves up, moves
+     * to another tower above it, or has no neighbor to the north.
+     * @return the northern neighbor, or null if it doesn't exist
+     */
+    public TipOverConfig getNorth() {
+        return neighbor(0);
+    }
+
     /**
      * Checks for a possible neighbor below the current space, whether it tips a tower and moves down, moves
      * to another tower below it, or has no neighbor to the south.
      * @return the southern neighbor, or null if it doesn't exist
      */
     public TipOverConfig getSouth() {
-        // Check space below the current position
-        if (currentPos[0] < board.length - 1 && !board[currentPos[0] + 1][currentPos[1]].equals("0")) {
-            TipOverConfig newConfig = new TipOverConfig(this);  // Creates a copy of the config
-            newConfig.currentPos[0] += 1;  // Changes the config's tipper position
-            return newConfig;
-        }
-        // If the tipper is on a tower it can be tipped, so check which ways the tower can actually tip as well
-        // as get to another valid space once tipped
-        if (!board[currentPos[0]][currentPos[1]].equals("1")) {
-            // Variable stores the height of the tower the tipper is on
-            int height = Integer.parseInt(board[currentPos[0]][currentPos[1]]);
-
-            // Finds lower neighbor of a tower
-            if (currentPos[0] + height <= board.length - 1) {
-                TipOverConfig newConfig = new TipOverConfig(this);  // Creates a copy of the config
-                // Sets the original tower location to 0 because it is tipped over now
-                newConfig.board[currentPos[0]][currentPos[1]] = "0";
-                boolean canTip = true;  // Boolean to check if there is space to tip the tower
-                // Checks the spaces the tower tips into to see if they are empty
-                for (int i = 1; i <= height; i++) {
-                    // If the space is not empty the tower cannot be tipped
-                    if (!(board[currentPos[0] + i][currentPos[1]]).equals("0")) {
-                        canTip = false;
-                        break;
-                    }
-
-                    newConfig.board[currentPos[0] + i][currentPos[1]] = "1";  // Sets the spot to 1 for tipped tower
-                }
-
-                // If the tower can be tipped, it adjusts the tipper position to the first spot of the tipped tower
-                // nex to where it originally stood and adds it to the neighbors LinkedList
-                if (canTip) {
-                    newConfig.currentPos[0] += 1;
-                    return newConfig;
-                }
-            }
-        }
-        return null;
+        return neighbor(1);
     }
 
     /**
@@ -236,44 +371,7 @@ public class TipOverConfig implements Configuration{
      * @return the eastern neighbor, or null if it doesn't exist
      */
     public TipOverConfig getEast() {
-        // Check space to the right of the current position
-        if (currentPos[1] < tipOver.getNumCols() - 1 && !board[currentPos[0]][currentPos[1] + 1].equals("0")) {
-            TipOverConfig newConfig = new TipOverConfig(this);  // Creates a copy of the config
-            newConfig.currentPos[1] += 1;  // Changes the config's tipper position
-            return newConfig;
-        }
-        // If the tipper is on a tower it can be tipped, so check which ways the tower can actually tip as well
-        // as get to another valid space once tipped
-        if (!board[currentPos[0]][currentPos[1]].equals("1")) {
-            // Variable stores the height of the tower the tipper is on
-            int height = Integer.parseInt(board[currentPos[0]][currentPos[1]]);
-
-            // Finds right neighbor of a tower
-            if (currentPos[1] + height <= board[0].length - 1) {
-                TipOverConfig newConfig = new TipOverConfig(this);  // Creates a copy of the config
-                // Sets the original tower location to 0 because it is tipped over now
-                newConfig.board[currentPos[0]][currentPos[1]] = "0";
-                boolean canTip = true;  // Boolean to check if there is space to tip the tower
-                // Checks the spaces the tower tips into to see if they are empty
-                for (int i = 1; i <= height; i++) {
-                    // If the space is not empty the tower cannot be tipped
-                    if (!(board[currentPos[0]][currentPos[1] + i]).equals("0")) {
-                        canTip = false;
-                        break;
-                    }
-
-                    newConfig.board[currentPos[0]][currentPos[1] + i] = "1";  // Sets the spot to 1 for tipped tower
-                }
-
-                // If the tower can be tipped, it adjusts the tipper position to the first spot of the tipped tower
-                // nex to where it originally stood and adds it to the neighbors LinkedList
-                if (canTip) {
-                    newConfig.currentPos[1] += 1;
-                    return newConfig;
-                }
-            }
-        }
-        return null;
+        return neighbor(2);
     }
 
     /**
@@ -282,44 +380,23 @@ public class TipOverConfig implements Configuration{
      * @return the western neighbor, or null if it doesn't exist
      */
     public TipOverConfig getWest() {
-        // Check space to the left of the current position
-        if (currentPos[1] > 0 && !board[currentPos[0]][currentPos[1] - 1].equals("0")) {
-            TipOverConfig newConfig = new TipOverConfig(this);  // Creates a copy of the config
-            newConfig.currentPos[1] -= 1;  // Changes the config's tipper position
-            return newConfig;
-        }
-        // If the tipper is on a tower it can be tipped, so check which ways the tower can actually tip as well
-        // as get to another valid space once tipped
-        if (!board[currentPos[0]][currentPos[1]].equals("1")) {
-            // Variable stores the height of the tower the tipper is on
-            int height = Integer.parseInt(board[currentPos[0]][currentPos[1]]);
-
-            // Finds left neighbor of a tower
-            if (currentPos[1] - height >= 0) {
-                TipOverConfig newConfig = new TipOverConfig(this);  // Creates a copy of the config
-                // Sets the original tower location to 0 because it is tipped over now
-                newConfig.board[currentPos[0]][currentPos[1]] = "0";
-                boolean canTip = true;  // Boolean to check if there is space to tip the tower
-                // Checks the spaces the tower tips into to see if they are empty
-                for (int i = 1; i <= height; i++) {
-                    // If the space is not empty the tower cannot be tipped
-                    if (!(board[currentPos[0]][currentPos[1] - i]).equals("0")) {
-                        canTip = false;
-                        break;
-                    }
-
-                    newConfig.board[currentPos[0]][currentPos[1] - i] = "1";  // Sets the spot to 1 for tipped tower
-                }
+        return neighbor(3);
+    }
 
-                // If the tower can be tipped, it adjusts the tipper position to the first spot of the tipped tower
-                // nex to where it originally stood and adds it to the neighbors LinkedList
-                if (canTip) {
-                    newConfig.currentPos[1] -= 1;
-                    return newConfig;
-                }
+    /**
+     * Hands the TipOverConfig's neighbors to a consumer in the order north, south, east, west, skipping any
+     * direction the tipper can't move or tip in.
+     * @param sink the consumer that is given each neighbor
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachNeighbor(Consumer sink) {
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            TipOverConfig neighbor = neighbor(d);
+            if (neighbor != null) {
+                sink.accept(neighbor);
             }
         }
-        return null;
     }
 
     /**
@@ -331,26 +408,43 @@ public class TipOverConfig implements Configuration{
     @Override
     public LinkedList<TipOverConfig> getNeighbors() {
         LinkedList<TipOverConfig> neighbors = new LinkedList<>();  // LinkedList to store neighbors
+        forEachNeighbor(neighbor -> neighbors.add((TipOverConfig) neighbor));
+        return neighbors;
+    }
 
-        TipOverConfig north = getNorth();
-        TipOverConfig south = getSouth();
-        TipOverConfig east = getEast();
-        TipOverConfig west = getWest();
-
-        if (north != null) {
-            neighbors.add(north);
-        }
-        if (south != null) {
-            neighbors.add(south);
-        }
-        if (east != null) {
-            neighbors.add(east);
-        }
-        if (west != null) {
-            neighbors.add(west);
+    /**
+     * Returns the ordinal of the compass direction the tipper moves or tips in to reach a neighbor, so a solution
+     * path takes a byte per move.
+     * @param neighbor a neighbor of the configuration
+     * @return the ordinal of a Coordinates.Direction, or -1 if it isn't a neighbor
+     */
+    @Override
+    public int moveTo(Object neighbor) {
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            if (neighbor.equals(neighbor(d))) {
+                return TipOver.COMPASS[d].ordinal();
+            }
         }
+        return -1;
+    }
 
-        return neighbors;
+    /**
+     * Makes the neighbor reached by moving or tipping in a compass direction.
+     * @param move the ordinal of a Coordinates.Direction returned by moveTo
+     * @return the neighbor
+     * @throws IllegalArgumentException if the tipper can't move or tip that way
+     */
+    @Override
+    public TipOverConfig move(int move) {
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            if (TipOver.COMPASS[d].ordinal() == move) {
+                TipOverConfig neighbor = neighbor(d);
+                if (neighbor != null) {
+                    return neighbor;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No move " + move + " from\n" + this);
     }
 
     /**
@@ -377,13 +471,14 @@ public class TipOverConfig implements Configuration{
 
         // Adds numbers to represent the row of the board, and the actual corresponding row from the
         // board to the string
-        for (int k = 0; k < board.length; k++) {
+        int cols = tipOver.getNumCols();
+        for (int k = 0; k < tipOver.getNumRows(); k++) {
             gameBoard += "\n " + k + " |";  // Adds the row number
 
             // Adds the row of the board
-            for (int l = 0; l < board[k].length; l++) {
+            for (int l = 0; l < cols; l++) {
                 // If the tipper is at this spot add a '*' in front to show that
-                if (currentPos[0] == k && currentPos[1] == l) {
+                if (tipper == k * cols + l) {
                     gameBoard += " *";
                 }
                 // Otherwise, if this is the ending location add a '!' here to show that
@@ -395,12 +490,12 @@ public class TipOverConfig implements Configuration{
                 }
 
                 // If the board is empty add a '_' to show that
-                if (board[k][l].equals("0")) {
+                if (spaces[k * cols + l] == 0) {
                     gameBoard += "_";
                 }
-                // Otherwise, add the String from the board to show the height of the tower/crate there
+                // Otherwise, add the height of the tower/crate there
                 else {
-                    gameBoard += board[k][l];
+                    gameBoard += spaces[k * cols + l];
                 }
             }
         }
@@ -408,4 +503,212 @@ public class TipOverConfig implements Configuration{
         gameBoard += "\n";
         return gameBoard;
     }
+
+    /**
+     * Returns the fewest steps from the tipper to the goal over the spaces that have a crate or tower now, or
+     * could get a crate later from a standing tower tipping into them. Every move puts the tipper on a space
+     * next to where it was that has a crate or tower, and tipping only ever takes spaces away from this set, so
+     * this is never more than the moves left and never drops by more than 1 in a single move.
+     * @return a lower bound on the moves left, or UNREACHABLE if the goal can never be reached
+     */
+    @Override
+    public int heuristic() {
+        int rows = tipOver.getNumRows();
+        int cols = tipOver.getNumCols();
+        boolean[][] open = new boolean[rows][cols];  // Spaces the tipper could ever stand on
+
+        // Marks every space with something on it, plus every space a standing tower could fall onto
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int height = spaces[i * cols + j];
+                if (height != 0) {
+                    open[i][j] = true;
+                }
+                if (height > 1) {
+                    for (int[] dir : DIRECTIONS) {
+                        int endRow = i + dir[0] * height;
+                        int endCol = j + dir[1] * height;
+                        if (endRow < 0 || endRow >= rows || endCol < 0 || endCol >= cols) {
+                            continue;
+                        }
+                        // A crate in the way can never move, so the tower can never fall this way
+                        boolean blocked = false;
+                        for (int k = 1; k <= height && !blocked; k++) {
+                            blocked = spaces[(i + dir[0] * k) * cols + j + dir[1] * k] == 1;
+                        }
+                        for (int k = 1; k <= height && !blocked; k++) {
+                            open[i + dir[0] * k][j + dir[1] * k] = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Breadth first search over the open spaces from the tipper to the goal
+        int[] end = tipOver.getEndCoord();
+        int[] distance = new int[rows * cols];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = tipper;
+        distance[queue[0]] = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / cols;
+            int col = cell % cols;
+            if (row == end[0] && col == end[1]) {
+                return distance[cell];
+            }
+            for (int[] dir : DIRECTIONS) {
+                int nextRow = row + dir[0];
+                int nextCol = col + dir[1];
+                if (nextRow >= 0 && nextRow < rows && nextCol >= 0 && nextCol < cols && open[nextRow][nextCol]
+                        && distance[nextRow * cols + nextCol] < 0) {
+                    distance[nextRow * cols + nextCol] = distance[cell] + 1;
+                    queue[tail++] = nextRow * cols + nextCol;
+                }
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    /**
+     * Checks if the goal can't be reached any more, because it is empty and no standing tower could fall
+     * across it, or because no spaces that have or could get a crate connect the tipper to it. This is the
+     * heuristic being UNREACHABLE, which takes microseconds on the sample boards.
+     * @return true if the goal can never be reached from this configuration, false if it might be
+     */
+    @Override
+    public boolean isDeadEnd() {
+        return heuristic() == UNREACHABLE;
+    }
+
+    /**
+     * Packs the configuration into a long. Every tower is either standing or was tipped in one of four
+     * directions, which is stored as a base 5 digit per tower, and the board is rebuilt from those digits and
+     * the starting board. The tipper's space is stored below the digits.
+     * @return the key of the configuration
+     * @throws ArithmeticException if the board has too many towers for the key to fit in a long
+     * @throws IllegalStateException if the board can't be made by tipping the starting towers
+     */
+    @Override
+    public long encode() {
+        int[][] towers = tipOver.getTowers();
+        int[] tips = new int[towers.length];
+        if (!findTips(0, tips, new boolean[spaces.length])) {
+            throw new IllegalStateException("Board can't be made by tipping the starting towers");
+        }
+
+        long key = 0;
+        for (int k = towers.length - 1; k >= 0; k--) {
+            key = Math.addExact(Math.multiplyExact(key, 5), tips[k]);
+        }
+        long cells = (long) tipOver.getNumRows() * tipOver.getNumCols();
+        return Math.addExact(Math.multiplyExact(key, cells), tipper);
+    }
+
+    /**
+     * Works out which way each tower from tower k on was tipped, trying the directions in order and backing up
+     * if a choice leaves crates on the board that no tower accounts for. Trying them in a fixed order means
+     * equal boards always get the same digits.
+     * @param k the index of the tower to work out
+     * @param tips 0 for each standing tower, or 1 plus the index in DIRECTIONS it was tipped in
+     * @param claimed the spaces already covered by the towers before k
+     * @return true if a choice for every tower matches the board, false otherwise
+     */
+    private boolean findTips(int k, int[] tips, boolean[] claimed) {
+        int[][] towers = tipOver.getTowers();
+        byte[] startSpaces = tipOver.getStartSpaces();
+        int cols = tipOver.getNumCols();
+
+        // Every crate that wasn't on the starting board has to come from a tipped tower
+        if (k == towers.length) {
+            for (int space = 0; space < spaces.length; space++) {
+                if (spaces[space] == 1 && startSpaces[space] != 1 && !claimed[space]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int row = towers[k][0];
+        int col = towers[k][1];
+        int height = towers[k][2];
+        if (spaces[row * cols + col] == startSpaces[row * cols + col]) {
+            tips[k] = 0;
+            return findTips(k + 1, tips, claimed);
+        }
+
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int endRow = row + DIRECTIONS[d][0] * height;
+            int endCol = col + DIRECTIONS[d][1] * height;
+            if (endRow < 0 || endRow >= tipOver.getNumRows() || endCol < 0 || endCol >= cols) {
+                continue;
+            }
+            boolean fits = true;
+            for (int i = 1; i <= height && fits; i++) {
+                int space = (row + DIRECTIONS[d][0] * i) * cols + col + DIRECTIONS[d][1] * i;
+                fits = spaces[space] == 1 && startSpaces[space] != 1 && !claimed[space];
+            }
+            if (fits) {
+                setClaimed(claimed, row * cols + col, DIRECTIONS[d][0] * cols + DIRECTIONS[d][1], height, true);
+                tips[k] = d + 1;
+                if (findTips(k + 1, tips, claimed)) {
+                    return true;
+                }
+                setClaimed(claimed, row * cols + col, DIRECTIONS[d][0] * cols + DIRECTIONS[d][1], height, false);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks or unmarks the spaces a tower covers when it is tipped in a direction.
+     * @param claimed the spaces covered so far
+     * @param space the space of the tower
+     * @param step the change in space index for one move in the direction it was tipped in
+     * @param height the height of the tower
+     * @param value true to mark the spaces, false to unmark them
+     */
+    private static void setClaimed(boolean[] claimed, int space, int step, int height, boolean value) {
+        for (int i = 1; i <= height; i++) {
+            claimed[space + step * i] = value;
+        }
+    }
+
+    /**
+     * Builds the configuration a key was made from by tipping the towers of the starting board.
+     * @param key a key returned by encode
+     * @return the configuration the key represents
+     */
+    @Override
+    public TipOverConfig decode(long key) {
+        int cols = tipOver.getNumCols();
+        long cells = (long) tipOver.getNumRows() * cols;
+        int cell = (int) (key % cells);
+        long tips = key / cells;
+
+        byte[] newSpaces = tipOver.getStartSpaces().clone();
+
+        // Empties every tipped tower's space first, since a later tower may have fallen across it
+        int[][] towers = tipOver.getTowers();
+        int[] directions = new int[towers.length];
+        for (int k = 0; k < towers.length; k++) {
+            directions[k] = (int) (tips % 5);
+            tips /= 5;
+            if (directions[k] > 0) {
+                newSpaces[towers[k][0] * cols + towers[k][1]] = 0;
+            }
+        }
+        for (int k = 0; k < towers.length; k++) {
+            if (directions[k] > 0) {
+                int[] direction = DIRECTIONS[directions[k] - 1];
+                for (int i = 1; i <= towers[k][2]; i++) {
+                    newSpaces[(towers[k][0] + direction[0] * i) * cols + towers[k][1] + direction[1] * i] = 1;
+                }
+            }
+        }
+        return new TipOverConfig(tipOver, newSpaces, cell);
+    }
 }
@@ -0,0 +1,319 @@
+package puzzles.tipover.model;
+
+import puzzles.tipover.TipOver;
+
+import java.util.*;
+
+/**
+ * Solves Tip Over by searching over tips instead of single moves. Walking never changes the board, so a state
+ * is a board with the space the tipper landed on after the last tip, and every tower the tipper can walk to from
+ * there is one edge per direction it can fall, costing the steps to walk to it plus the tip. The search is
+ * Dijkstra's algorithm on those costs, so the path has as many moves as the one {@link solver.Solver} finds,
+ * and the walks are only expanded back into single steps once the solution is known.
+ * <p>
+ * Two tips commute when neither tower or the spaces it falls across touch the other's, so tipping them in
+ * either order makes the same board. The orders still end with the tipper on different spaces, so neither can
+ * just be dropped, but once both reach the board only the cheaper one is worth going on with: a state is
+ * dominated by another on the same board if that one's moves plus the walk between their spaces is no more
+ * than its own moves, since it can walk over and do anything the dominated state does. Dominated states are
+ * not searched, which keeps the path the shortest one while only one ordering of the commuting tips is carried
+ * past the point they meet.
+ *
+ * @author Luke Chelius
+ */
+public class TipOverMacroSolver {
+
+    /**
+     * An entry in the frontier.
+     * @param state the board and the space the tipper landed on
+     * @param moves the number of single moves from the start to the state
+     * @param finish true if this entry is walking from the state to the goal rather than the state itself
+     * @param order when the entry was added, used to break ties in the order they were found
+     */
+    private record Entry(TipOverConfig state, int moves, boolean finish, long order) {}
+
+    /**
+     * How a state was reached.
+     * @param previous the state the tipper walked from
+     * @param tower the space of the tower it walked to and tipped
+     */
+    private record Tip(TipOverConfig previous, int tower) {}
+
+    /**
+     * A state's board without its tipper, so states with the same board are grouped together.
+     * @param config a state with the board
+     */
+    private record Board(TipOverConfig config) {
+
+        /**
+         * Compares the boards of two states, wherever their tippers are.
+         * @param o the other board
+         * @return true if the boards are the same, false otherwise
+         */
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Board other && config.sameBoard(other.config);
+        }
+
+        /**
+         * Hashes the board from the Zobrist hash of the state without its tipper.
+         * @return an int that represents the board
+         */
+        @Override
+        public int hashCode() {
+            return Long.hashCode(config.boardHash());
+        }
+    }
+
+    /**
+     * The frontier, ordered by fewest moves, then the order they were found.
+     */
+    private PriorityQueue<Entry> frontier;
+
+    /**
+     * HashMap of the previously reached states to the tip they were reached by on the shortest known path,
+     * null for the start.
+     */
+    private HashMap<TipOverConfig, Tip> predecessorMap;
+
+    /**
+     * The fewest moves from the start found so far to each reached state.
+     */
+    private HashMap<TipOverConfig, Integer> moves;
+
+    /**
+     * The steps from each reached state's space to every space on its board, walking only.
+     */
+    private HashMap<TipOverConfig, int[]> walks;
+
+    /**
+     * The reached states on each board.
+     */
+    private HashMap<Board, List<TipOverConfig>> boards;
+
+    /**
+     * True to skip states that are dominated by another state on the same board.
+     */
+    private boolean pruneDominated;
+
+    /**
+     * The starting configuration.
+     */
+    private TipOverConfig start;
+
+    /**
+     * The total number of states found, including duplicates.
+     */
+    private int totalConfigs;
+
+    /**
+     * The number of states whose tips were generated.
+     */
+    private int expanded;
+
+    /**
+     * Creates a new TipOverMacroSolver for a starting configuration.
+     * @param start the starting configuration
+     */
+    public TipOverMacroSolver(TipOverConfig start) {
+        this.frontier = new PriorityQueue<>(Comparator.comparingInt(Entry::moves).thenComparingLong(Entry::order));
+        this.predecessorMap = new HashMap<>();
+        this.moves = new HashMap<>();
+        this.walks = new HashMap<>();
+        this.boards = new HashMap<>();
+        this.pruneDominated = true;
+        this.start = start;
+        this.totalConfigs = 0;
+        this.expanded = 0;
+    }
+
+    /**
+     * Sets whether states dominated by another state on the same board are skipped, which is on by default.
+     * Turning it off searches every ordering of commuting tips, for measuring what the pruning saves.
+     * @param pruneDominated true to skip dominated states, false to search them
+     */
+    public void setPruneDominated(boolean pruneDominated) {
+        this.pruneDominated = pruneDominated;
+    }
+
+    /**
+     * Searches the tips from the start configuration for the fewest moves to the goal.
+     * @param print a boolean, true to print the total and unique states, false not to
+     * @return a LinkedList containing every single move configuration in order to get from the start
+     * to the end node in the least number of steps
+     */
+    public LinkedList<TipOverConfig> solve(boolean print) {
+        // A start that can't reach the goal doesn't need to be searched
+        if (start.isDeadEnd()) {
+            printConfigs(print);
+            return null;
+        }
+
+        long order = 0;
+        frontier.add(new Entry(start, 0, false, order++));
+        predecessorMap.put(start, null);
+        reach(start, 0);
+        totalConfigs++;  // Adds 1 to the configuration count
+        int goal = start.getGoalSpace();
+
+        // Runs until the frontier is empty
+        while (!frontier.isEmpty()) {
+            Entry entry = frontier.remove();
+            TipOverConfig state = entry.state();
+            if (entry.finish()) {
+                printConfigs(print);
+                return buildPath(state);
+            }
+            if (entry.moves() > moves.get(state)) {
+                continue;  // A shorter way to this state was found after the entry was added
+            }
+            if (dominated(state, entry.moves())) {
+                continue;  // A cheaper state on the same board found since can do everything this one can
+            }
+            expanded++;
+
+            // Walking to the goal finishes the puzzle
+            int[] distance = walks.get(state);
+            if (distance[goal] >= 0) {
+                frontier.add(new Entry(state, entry.moves() + distance[goal], true, order++));
+            }
+
+            // Every tower the tipper can walk to can be tipped in each direction it has room to fall
+            for (int tower = 0; tower < distance.length; tower++) {
+                if (distance[tower] < 0) {
+                    continue;
+                }
+                for (int d = 0; d < TipOver.DIRECTIONS.length; d++) {
+                    TipOverConfig next = state.tip(tower, d);
+                    if (next == null) {
+                        continue;
+                    }
+                    totalConfigs++;  // Adds 1 to the total config count
+                    if (next.isDeadEnd()) {
+                        continue;  // Tipping this way cuts the tipper off from the goal for good
+                    }
+                    int cost = entry.moves() + distance[tower] + 1;
+                    Integer known = moves.get(next);
+                    if ((known == null || cost < known) && !dominated(next, cost)) {
+                        reach(next, cost);
+                        predecessorMap.put(next, new Tip(state, tower));
+                        frontier.add(new Entry(next, cost, false, order++));
+                    }
+                }
+            }
+        }
+
+        // Runs if no solution was found
+        printConfigs(print);
+        return null;
+    }
+
+    /**
+     * Records the fewest moves found so far to a state, and the first time it is reached its walks and board.
+     * @param state the state
+     * @param cost the moves from the start to it
+     */
+    private void reach(TipOverConfig state, int cost) {
+        if (moves.put(state, cost) == null) {
+            walks.put(state, state.walkDistances(state.getTipperSpace()));
+            boards.computeIfAbsent(new Board(state), board -> new ArrayList<>()).add(state);
+        }
+    }
+
+    /**
+     * Checks if another reached state on the same board can walk to a state's space in no more moves than the
+     * state itself was reached in. Walking between two different spaces takes at least one move, so two states
+     * never dominate each other and the cheapest ones are always kept.
+     * @param state the state
+     * @param cost the moves from the start to the state
+     * @return true if the state is dominated and pruning is on, false otherwise
+     */
+    private boolean dominated(TipOverConfig state, int cost) {
+        List<TipOverConfig> others = boards.get(new Board(state));
+        if (!pruneDominated || others == null) {
+            return false;
+        }
+        for (TipOverConfig other : others) {
+            int walk = walks.get(other)[state.getTipperSpace()];
+            if (walk > 0 && moves.get(other) + walk <= cost) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rebuilds the single moves from the start to the goal, walking the shortest way to each tipped tower and
+     * then to the goal.
+     * @param last the state the tipper walked to the goal from
+     * @return the path from the start to the solution
+     */
+    private LinkedList<TipOverConfig> buildPath(TipOverConfig last) {
+        // Follows the tips back to the start
+        LinkedList<TipOverConfig> states = new LinkedList<>();
+        for (TipOverConfig state = last; state != null;
+             state = predecessorMap.get(state) == null ? null : predecessorMap.get(state).previous()) {
+            states.add(0, state);
+        }
+
+        LinkedList<TipOverConfig> solution = new LinkedList<>();  // Empty LinkedList for the solution configs
+        solution.add(start);
+        Iterator<TipOverConfig> iterator = states.iterator();
+        iterator.next();
+        while (iterator.hasNext()) {
+            TipOverConfig next = iterator.next();
+            walk(solution, predecessorMap.get(next).tower());
+            solution.add(next);  // The tip itself
+        }
+        walk(solution, start.getGoalSpace());
+        return solution;
+    }
+
+    /**
+     * Adds the steps from the last configuration of the path to a space, the shortest way without tipping.
+     * @param solution the path so far
+     * @param target the space to walk to
+     */
+    private static void walk(LinkedList<TipOverConfig> solution, int target) {
+        TipOverConfig config = solution.getLast();
+        int[] distance = config.walkDistances(target);
+        while (config.getTipperSpace() != target) {
+            // Steps to whichever neighbor is one step closer, a tip would land on a space the board didn't have
+            for (int d = 0; d < TipOver.DIRECTIONS.length; d++) {
+                TipOverConfig next = config.neighbor(d);
+                if (next != null && distance[next.getTipperSpace()] == distance[config.getTipperSpace()] - 1) {
+                    config = next;
+                    break;
+                }
+            }
+            solution.add(config);
+        }
+    }
+
+    /**
+     * Returns the number of states whose tips were generated in the last solve.
+     * @return the expanded state count
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Returns the number of states reached in the last solve.
+     * @return the unique state count
+     */
+    public int getUniqueConfigs() {
+        return moves.size();
+    }
+
+    /**
+     * Prints the total and unique state counts the same way {@link solver.Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + moves.size());  // Prints the unique config count
+        }
+    }
+}
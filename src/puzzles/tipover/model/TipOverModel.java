@@ -2,13 +2,21 @@ package puzzles.tipover.model;
 
 import puzzles.tipover.TipOver;
 
+import solver.DistanceTable;
+import solver.SolveBudget;
+import solver.SolveResult;
 import solver.Solver;
+import solver.SolverStats;
 import util.Observer;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.OptionalInt;
 import java.util.Scanner;
 
 /**
@@ -19,15 +27,74 @@ import java.util.Scanner;
 public class TipOverModel {
 
     /**
-     * The configuration of the puzzle.
+     * How long the UIs let a hint search before giving up on it.
      */
-    private TipOverConfig currentConfig;
+    public static final Duration HINT_TIME_LIMIT = Duration.ofSeconds(10);
+
+    /**
+     * The most configs precomputeDistances expands before giving up, which keeps the table of a huge board from
+     * using up the memory.
+     */
+    public static final long DISTANCE_MAX_CONFIGS = 1_000_000;
+
+    /**
+     * The configuration of the puzzle, read from any thread but only changed while holding the model's lock.
+     */
+    private volatile TipOverConfig currentConfig;
 
     /**
      * List of objects observing every done to this object.
      */
     private final List<Observer<TipOverModel, Object>> observers = new LinkedList<>();
 
+    /**
+     * The measurements of the solve behind the last hint, null before the first hint.
+     */
+    private SolverStats hintStats;
+
+    /**
+     * True if the last hint tipped a tower over.
+     */
+    private boolean hintTipped;
+
+    /**
+     * The shortest path found by the last hint search, empty if there is none. Every part of a shortest path is
+     * itself a shortest path, so hints from any config on it can be read from it without searching again.
+     */
+    private final ArrayList<TipOverConfig> hintPath = new ArrayList<>();
+
+    /**
+     * The index of every config in hintPath.
+     */
+    private final HashMap<TipOverConfig, Integer> hintIndex = new HashMap<>();
+
+    /**
+     * True if a hint search found the puzzle unsolvable. Moves only lead to configs reachable from the one that
+     * was searched, so the puzzle stays unsolvable until a new one is loaded.
+     */
+    private boolean knownUnsolvable;
+
+    /**
+     * The moves to the solution from every config reachable from the start, null until precomputeDistances
+     * has finished building it in the background.
+     */
+    private volatile DistanceTable<TipOverConfig> distances;
+
+    /**
+     * True if precomputeDistances was called, so puzzles loaded from this model precompute theirs too.
+     */
+    private boolean precompute;
+
+    /**
+     * The budget of the distance table being built, cancelled once another puzzle is loaded.
+     */
+    private SolveBudget distanceBudget;
+
+    /**
+     * Why the distance table couldn't be built, null if it is built, being built or wasn't asked for.
+     */
+    private volatile String distanceProblem;
+
     /*
      * Code here includes...
      * Additional data variables for anything needed beyond what is in
@@ -81,10 +148,82 @@ public class TipOverModel {
      */
     public TipOverModel load(String file) throws FileNotFoundException {
         TipOverModel temp = new TipOverModel(file);
+        clearHints();  // The cached hints are for the old puzzle
+        if (distanceBudget != null) {
+            distanceBudget.cancel();  // Neither is the table of the old puzzle
+        }
+        if (precompute) {
+            temp.precomputeDistances();
+        }
         this.notifyObservers();
         return temp;
     }
 
+    /**
+     * Starts building a table of the moves to the solution from every config reachable from the start on a
+     * background thread. Once it is done hints are read from it and remainingMoves is known after every move.
+     * Boards with more than DISTANCE_MAX_CONFIGS reachable configs, or too big to encode, get no table, and
+     * getDistanceProblem says why.
+     */
+    public void precomputeDistances() {
+        if (precompute) {
+            return;
+        }
+        precompute = true;
+        TipOverConfig start = currentConfig;
+        SolveBudget budget = new SolveBudget().withMaxExpanded(DISTANCE_MAX_CONFIGS);
+        distanceBudget = budget;
+        Thread builder = new Thread(() -> {
+            try {
+                distances = new DistanceTable<>(start, budget);
+            }
+            // Hints go on searching without the table, the UIs say why it is missing
+            catch (ArithmeticException ae) {
+                reportDistanceProblem(budget, "the board has too many towers to encode");
+            }
+            catch (OutOfMemoryError oome) {
+                reportDistanceProblem(budget, "there isn't enough memory");
+            }
+            catch (RuntimeException re) {
+                reportDistanceProblem(budget, String.valueOf(re.getMessage()));
+            }
+        }, "tipover-distances");
+        builder.setDaemon(true);  // Doesn't keep the program running if the user quits first
+        builder.start();
+    }
+
+    /**
+     * Returns the fewest moves from the current config to the solution, if the distance table is done.
+     * @return the number of moves, DistanceTable.UNSOLVABLE if the solution can't be reached, or empty if the
+     * table isn't built yet
+     */
+    public OptionalInt remainingMoves() {
+        DistanceTable<TipOverConfig> table = distances;
+        return table == null ? OptionalInt.empty() : OptionalInt.of(table.distance(currentConfig));
+    }
+
+    /**
+     * Remembers why the distance table couldn't be built and prints it, unless the build was cancelled because
+     * another puzzle was loaded.
+     * @param budget the budget of the build
+     * @param problem why the table couldn't be built
+     */
+    private void reportDistanceProblem(SolveBudget budget, String problem) {
+        if (!budget.isCancelled()) {
+            distanceProblem = problem;
+            System.err.println("Distances unavailable: " + problem);
+        }
+    }
+
+    /**
+     * Returns why the distance table couldn't be built, so the UIs can tell the user remainingMoves won't become
+     * known.
+     * @return the problem, or null if the table is built, being built or wasn't asked for
+     */
+    public String getDistanceProblem() {
+        return distanceProblem;
+    }
+
     /**
      * Adds an observer to the list of observers.
      * @param observer the observer to add
@@ -110,12 +249,20 @@ public class TipOverModel {
         return currentConfig;
     }
 
+    /**
+     * Returns the measurements of the solve behind the last hint.
+     * @return the stats of the last hint, or null if no hint has been given
+     */
+    public SolverStats getHintStats() {
+        return hintStats;
+    }
+
     /**
      * Moves the tipper in a specified direction if it is able to move in that direction.
      * @param direction the direction to move ('north', 'south', 'east', or 'west')
      * @return a boolean, true if it is a valid move, false otherwise
      */
-    public boolean[] move(String direction) {
+    public synchronized boolean[] move(String direction) {
         boolean validMove = false;  // Boolean initially set to false
         boolean tipped = false;  // Boolean for if a tower was tipped
         int[] oldPos = currentConfig.getCurrentPos();
@@ -169,30 +316,152 @@ public class TipOverModel {
                 return new boolean[]{false, false};
             }
         }
+        // Forgets the cached path once the tipper leaves it
+        if (validMove && !hintIndex.containsKey(currentConfig)) {
+            hintPath.clear();
+            hintIndex.clear();
+        }
         this.notifyObservers();  // Notifies the observers
         return new boolean[]{validMove, tipped};
     }
 
     /**
      * Gets the next move in the shortest path to the solution if it exists.
-     * @return The next config in the solution as a string, or a string saying it is unsolvable
+     * @return a boolean array, [0] true if the board is solvable and the move was made, [1] true if a tower was
+     * tipped over
      */
     public boolean[] hint() {
-        Solver<TipOverConfig> hint = new Solver<>(currentConfig);  // Creates a solver
-        LinkedList<TipOverConfig> path = hint.solve(false);  // Gets the solution path from the solver
-        // If the path is null it is unsolvable, so return that
-        if (path == null) {
-            return new boolean[]{false, false};
-        }
-        // Otherwise, return the next config in the path as a string
-        boolean tipped = false;
+        SolveResult<TipOverConfig> result = hint(SolveBudget.unlimited());
+        return new boolean[]{result.getStatus() == SolveResult.Status.SOLVED, hintTipped};
+    }
+
+    /**
+     * Searches for the shortest path to the solution within a budget and makes its first move if one was found.
+     * No search is needed while the tipper is on the path found by an earlier hint. The search runs on the calling
+     * thread, UIs should use cachedHint, searchHint and applyHint to search on another one.
+     * @param budget the limits on the search
+     * @return the result of the search, use hintTipped to check if the move tipped a tower over
+     */
+    public SolveResult<TipOverConfig> hint(SolveBudget budget) {
+        SolveResult<TipOverConfig> result = cachedHint();
+        TipOverConfig from = currentConfig;
+        return applyHint(from, result != null ? result : searchHint(from, budget));
+    }
+
+    /**
+     * Returns the hint for the current config if it can be given without searching, from the distance table or
+     * the path of an earlier hint.
+     * @return the path from the current config, or null if a search is needed
+     */
+    public synchronized SolveResult<TipOverConfig> cachedHint() {
+        DistanceTable<TipOverConfig> table = distances;
+        Integer index = hintIndex.get(currentConfig);
+        // Follows the distance table if it is built, then tries the cached path
+        if (table != null) {
+            return tablePath(table);
+        }
+        else if (index != null) {
+            LinkedList<TipOverConfig> path = new LinkedList<>(hintPath.subList(index, hintPath.size()));
+            return new SolveResult<>(SolveResult.Status.SOLVED, path, null, hintStats);
+        }
+        else if (knownUnsolvable) {
+            return new SolveResult<>(SolveResult.Status.UNSOLVABLE, null, null, hintStats);
+        }
+        return null;
+    }
+
+    /**
+     * Searches for the shortest path from a config to the solution within a budget. Nothing in the model is
+     * read or changed, so this can run on any thread while the UI goes on, and the budget can be cancelled to
+     * stop it. Pass the result to applyHint on the UI's thread.
+     * @param from the config to search from
+     * @param budget the limits on the search
+     * @return the result of the search
+     */
+    public static SolveResult<TipOverConfig> searchHint(TipOverConfig from, SolveBudget budget) {
+        Solver<TipOverConfig> hint = new Solver<>(from);  // Creates a solver
+        hint.setPruneDeadEnds(true);  // Boards that can't reach the goal any more are skipped
+        return hint.solve(budget);  // Searches for the solution path
+    }
+
+    /**
+     * Remembers the result of a hint and makes its first move, if the tipper is still on the config it is for.
+     * @param from the config the hint is for
+     * @param result the result of cachedHint or searchHint
+     * @return the result, use hintTipped to check if the move tipped a tower over
+     */
+    public synchronized SolveResult<TipOverConfig> applyHint(TipOverConfig from, SolveResult<TipOverConfig> result) {
+        // Results from the caches carry the stats of the last search, so new stats mean a new search, which is
+        // cached even if the tipper has moved on since the path may still be useful
+        if (result.getStats() != hintStats) {
+            hintStats = result.getStats();
+            cacheHint(result);
+        }
+
+        hintTipped = false;
+        // If there is no path, or the tipper moved while searching, there is no move to make
+        if (result.getStatus() != SolveResult.Status.SOLVED || result.getPath().size() < 2
+                || !from.equals(currentConfig)) {
+            return result;
+        }
+        // Otherwise, make the next move in the path
         int[] oldPos = currentConfig.getCurrentPos();
-        TipOverConfig newConfig = path.get(1);
+        TipOverConfig newConfig = result.getPath().get(1);
         if (newConfig.getBoard()[oldPos[0]][oldPos[1]].equals("0")) {
-            tipped = true;
+            hintTipped = true;
         }
         currentConfig = newConfig;
         this.notifyObservers();  // Notifies the observers
-        return new boolean[]{true, tipped};
+        return result;
+    }
+
+    /**
+     * Builds the path from the current config to the solution by following the distance table.
+     * @param table the distance table
+     * @return a SOLVED result with the path, or an UNSOLVABLE one
+     */
+    private SolveResult<TipOverConfig> tablePath(DistanceTable<TipOverConfig> table) {
+        if (table.distance(currentConfig) == DistanceTable.UNSOLVABLE) {
+            return new SolveResult<>(SolveResult.Status.UNSOLVABLE, null, null, hintStats);
+        }
+        LinkedList<TipOverConfig> path = new LinkedList<>();
+        for (TipOverConfig config = currentConfig; config != null; config = table.next(config)) {
+            path.add(config);
+        }
+        return new SolveResult<>(SolveResult.Status.SOLVED, path, null, hintStats);
+    }
+
+    /**
+     * Remembers the outcome of a hint search so later hints can skip searching.
+     * @param result the result of the search
+     */
+    private void cacheHint(SolveResult<TipOverConfig> result) {
+        clearHints();
+        if (result.getStatus() == SolveResult.Status.SOLVED) {
+            for (TipOverConfig config : result.getPath()) {
+                hintIndex.put(config, hintPath.size());
+                hintPath.add(config);
+            }
+        }
+        else if (result.getStatus() == SolveResult.Status.UNSOLVABLE) {
+            knownUnsolvable = true;
+        }
+    }
+
+    /**
+     * Forgets every cached hint.
+     */
+    private void clearHints() {
+        hintPath.clear();
+        hintIndex.clear();
+        knownUnsolvable = false;
+    }
+
+    /**
+     * Checks if the move made by the last hint tipped a tower over.
+     * @return true if the last hint tipped a tower over, false otherwise
+     */
+    public boolean hintTipped() {
+        return hintTipped;
     }
 }
@@ -1,7 +1,11 @@
 package puzzles.tipover.ptui;
 
 
+import puzzles.tipover.model.TipOverConfig;
 import puzzles.tipover.model.TipOverModel;
+import solver.DistanceTable;
+import solver.SolveBudget;
+import solver.SolveResult;
 import util.Observer;
 import util.ptui.ConsoleApplication;
 
@@ -48,9 +52,14 @@ public class TipOverPTUI
     private final String SHOW = "show";
 
     /**
-     * The model for the PTUI, how it gets the information to display.
+     * String for the cancel command.
      */
-    private TipOverModel model;
+    private final String CANCEL = "cancel";
+
+    /**
+     * The model for the PTUI, how it gets the information to display. Also read by the hint search's thread.
+     */
+    private volatile TipOverModel model;
 
     /**
      * A PrintWriter for the PTUI.
@@ -62,6 +71,11 @@ public class TipOverPTUI
      */
     private String currentFile;
 
+    /**
+     * The budget of the hint search running in the background, null if none is.
+     */
+    private volatile SolveBudget hintBudget;
+
     /**
      * Initializes the model and adds it to the observers.
      * @throws FileNotFoundException thrown if the puzzle file is invalid
@@ -72,6 +86,7 @@ public class TipOverPTUI
         this.currentFile = args.get(0);  // Gets the file from the arguments
         this.model = new TipOverModel(this.currentFile);  // Creates the model from the puzzle file
         this.model.addObserver(this);  // Adds the model to the observers
+        this.model.precomputeDistances();  // Works out the moves left from every config in the background
     }
 
     /**
@@ -96,6 +111,7 @@ public class TipOverPTUI
                 LOAD, 1, "{board-file-name}: Load a new game board file.",
                 event -> {
                     try {
+                        cancelHint();  // A hint for the old puzzle is no use
                         this.out.println("New file loaded.");  // Prints the file being loaded
                         this.model = model.load(event[0]);  // Sets the model to the new puzzle file model
                         this.model.addObserver(this);  // Adds the model to the observers
@@ -115,6 +131,7 @@ public class TipOverPTUI
         super.setOnCommand(
                 RELOAD, 0, ": Load the most recent file again.",
                 event -> {
+                    cancelHint();  // A hint for the old puzzle is no use
                     this.out.println("New file loaded.");  // Prints that the file is being reloaded
                     this.model = model.load(currentFile);  // Sets the model to the same file's initial state
                     this.model.addObserver(this);  // Adds the model to the observers
@@ -155,21 +172,35 @@ public class TipOverPTUI
                     if (model.getCurrentConfig().isSolution()) {
                         this.out.println("You won! No more moves are needed.");
                     }
+                    // Only one search runs at a time
+                    else if (hintBudget != null) {
+                        this.out.println("Still searching for a hint, cancel to stop.");
+                    }
                     else {
-                        boolean[] bools = model.hint();
-
-                        if (bools[1]) {
-                            this.out.println("A tower has been tipped over.");
-                        }
-                        if (bools[0]) {
-                            this.out.println(model.getCurrentConfig());
+                        // Makes the next move right away if it is known, otherwise searches for it in the background
+                        SolveResult<TipOverConfig> cached = model.cachedHint();
+                        if (cached != null) {
+                            showHint(model.applyHint(model.getCurrentConfig(), cached));
                         }
                         else {
-                            this.out.println("Unsolvable board");
+                            searchHint();
                         }
                     }
                 }
         );
+        // Sets the cancel command that stops searching for a hint
+        super.setOnCommand(
+                CANCEL, 0, ": Stop searching for a hint.",
+                event -> {
+                    if (hintBudget != null) {
+                        cancelHint();
+                        this.out.println("Hint cancelled.");
+                    }
+                    else {
+                        this.out.println("No hint is being searched for.");
+                    }
+                }
+        );
         // Sets the show command that prints out the model's config
         super.setOnCommand(
                 SHOW, 0, ": Display the board.",
@@ -177,6 +208,65 @@ public class TipOverPTUI
         );
     }
 
+    /**
+     * Searches for a hint from the current config on a background thread, so commands can still be typed, and
+     * makes its move once it is found. The result is dropped if the search was cancelled or a puzzle was loaded
+     * in the meantime. The model makes its move while holding its lock, so it can't happen in the middle of a
+     * move command.
+     */
+    private void searchHint() {
+        TipOverModel searched = model;
+        TipOverConfig from = model.getCurrentConfig();
+        SolveBudget budget = new SolveBudget().withTimeLimit(TipOverModel.HINT_TIME_LIMIT);
+        hintBudget = budget;
+        this.out.println("Searching for a hint, cancel to stop.");
+        Thread thread = new Thread(() -> {
+            SolveResult<TipOverConfig> result = TipOverModel.searchHint(from, budget);
+            synchronized (searched) {
+                if (hintBudget != budget || searched != model) {
+                    return;
+                }
+                hintBudget = null;
+                boolean moved = !from.equals(searched.getCurrentConfig());
+                showHint(searched.applyHint(from, result));
+                // The hint is for where the tipper was, so its move wasn't made
+                if (moved && result.getStatus() == SolveResult.Status.SOLVED) {
+                    this.out.println("The tipper moved while searching, ask for another hint.");
+                }
+            }
+        }, "tipover-hint");
+        thread.setDaemon(true);  // Doesn't keep the program running if the user quits first
+        thread.start();
+    }
+
+    /**
+     * Stops the hint search running in the background, if there is one. Holds the model's lock so a search that
+     * just finished can't make its move after this returns.
+     */
+    private void cancelHint() {
+        synchronized (model) {
+            if (hintBudget != null) {
+                hintBudget.cancel();
+                hintBudget = null;
+            }
+        }
+    }
+
+    /**
+     * Tells the user what came of a hint.
+     * @param result the result of the hint
+     */
+    private void showHint(SolveResult<TipOverConfig> result) {
+        if (model.hintTipped()) {
+            this.out.println("A tower has been tipped over.");
+        }
+        switch (result.getStatus()) {
+            case SOLVED -> this.out.println(model.getCurrentConfig());
+            case UNSOLVABLE -> this.out.println("Unsolvable board");
+            case BUDGET_EXHAUSTED -> this.out.println("No hint found, the search " + result.getReason());
+        }
+    }
+
     /**
      * Called if the model was changed to update the PTUI.
      * @param model the model that informs that something happened
@@ -188,6 +278,11 @@ public class TipOverPTUI
         if (model.getCurrentConfig().isSolution()) {
             this.out.println("YOU WON!");
         }
+        // Otherwise, say how many moves are left once the model knows
+        else {
+            model.remainingMoves().ifPresent(moves -> this.out.println(moves == DistanceTable.UNSOLVABLE
+                    ? "The solution can't be reached from here." : "Solvable in " + moves + " moves."));
+        }
     }
 
     /**
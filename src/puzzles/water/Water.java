@@ -11,6 +11,13 @@ import java.util.*;
 
 public class Water {
 
+    /**
+     * True to answer impossible goals and two bucket puzzles without searching, turned on with
+     * -Dwater.shortcuts=true. Off by default, since the counts printed and the path can then differ from the ones
+     * a search gives.
+     */
+    private static final boolean SHORTCUTS = Boolean.getBoolean("water.shortcuts");
+
     /**
      * The ending amount that is trying to be reached.
      */
@@ -19,16 +26,42 @@ public class Water {
     /**
      * The max amounts each bucket can hold.
      */
-    private ArrayList<Integer> buckets;
+    private int[] buckets;
+
+    /**
+     * The indexes of the buckets in each group of two or more buckets with the same capacity.
+     */
+    private int[][] groups;
 
     /**
      * Creates a new Water object.
      * @param amount the goal amount to get
      * @param buckets the max amounts each bucket can hold
      */
-    public Water(int amount, ArrayList<Integer> buckets) {
+    public Water(int amount, int[] buckets) {
         this.amount = amount;
         this.buckets = buckets;
+
+        // Groups the buckets that share a capacity, in order of their first bucket
+        List<int[]> found = new ArrayList<>();
+        boolean[] grouped = new boolean[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            if (grouped[i]) {
+                continue;
+            }
+            int size = 0;
+            int[] group = new int[buckets.length];
+            for (int j = i; j < buckets.length; j++) {
+                if (buckets[j] == buckets[i]) {
+                    group[size++] = j;
+                    grouped[j] = true;
+                }
+            }
+            if (size > 1) {
+                found.add(Arrays.copyOf(group, size));
+            }
+        }
+        this.groups = found.toArray(new int[0][]);
     }
 
     /**
@@ -38,13 +71,127 @@ public class Water {
     public int getAmount() { return amount; }
 
     /**
-     * Returns the max amount of water each bucket can hold in an ArrayList where each index is a bucket.
-     * @return an ArrayList of the max volume of each bucket
+     * Returns the max amount of water each bucket can hold in an array where each index is a bucket.
+     * @return an array of the max volume of each bucket, which must not be changed
      */
-    public ArrayList<Integer> getBuckets() { return buckets; }
+    public int[] getBuckets() { return buckets; }
+
+    /**
+     * Returns the indexes of the buckets in each group of two or more buckets with the same capacity.
+     * @return the groups, which must not be changed
+     */
+    public int[][] getGroups() { return groups; }
+
+    /**
+     * Decides from the capacities alone whether the goal amount can never be in a bucket. Every move keeps every
+     * amount a multiple of the gcd of the capacities and no bigger than its bucket, and every such multiple up to
+     * the largest capacity can be measured, so nothing else can be reached. Negative capacities don't follow
+     * those rules, so they are never rejected here and are left to the search.
+     * @return true if no solution exists, false if one does or it can't be told without searching
+     */
+    public boolean isUnsolvable() {
+        int gcd = 0;
+        int largest = 0;
+        for (int capacity : buckets) {
+            if (capacity < 0) {
+                return false;
+            }
+            gcd = gcd(gcd, capacity);
+            largest = Math.max(largest, capacity);
+        }
+        // The empty start already holds 0
+        if (amount == 0) {
+            return false;
+        }
+        return amount < 0 || amount > largest || gcd == 0 || amount % gcd != 0;
+    }
+
+    /**
+     * Returns the greatest common divisor of two non-negative numbers, the other one if either is 0.
+     * @param a the first number
+     * @param b the second number
+     * @return the gcd of a and b
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
 
     /**
-     * Run an instance of the water buckets puzzle.
+     * Builds a shortest solution for a puzzle with exactly two buckets without searching. Every shortest solution
+     * either keeps filling the first bucket and pouring it into the second, emptying the second whenever it is
+     * full, or does the same the other way around, so both are played out and the shorter one is kept.
+     * @return the path from the empty buckets to a solution, or null if the puzzle doesn't have exactly two
+     * buckets with non-negative capacities or has no solution
+     */
+    public LinkedList<WaterConfiguration> solveTwoBuckets() {
+        if (buckets.length != 2 || buckets[0] < 0 || buckets[1] < 0 || isUnsolvable()) {
+            return null;
+        }
+        LinkedList<WaterConfiguration> path = new LinkedList<>();
+        path.add(new WaterConfiguration(this, new int[2]));
+
+        // A goal of 0 is already solved and a goal of a full bucket takes one fill, which also covers a bucket
+        // that can't hold anything, so both buckets can be filled from here on
+        if (amount == 0) {
+            return path;
+        }
+        if (amount == buckets[0] || amount == buckets[1]) {
+            path.add(new WaterConfiguration(this, amount == buckets[0] ? new int[]{amount, 0}
+                    : new int[]{0, amount}));
+            return path;
+        }
+        LinkedList<WaterConfiguration> forward = pourPath(0, 1);
+        LinkedList<WaterConfiguration> backward = pourPath(1, 0);
+        if (forward == null || (backward != null && backward.size() < forward.size())) {
+            forward = backward;
+        }
+        if (forward == null) {
+            return null;
+        }
+        path.addAll(forward);
+        return path;
+    }
+
+    /**
+     * Plays out filling one of two buckets and pouring it into the other, emptying the other whenever it is full,
+     * until either bucket holds the goal amount. Each bucket is back to empty after at most a few rounds through
+     * every amount, so the pours are capped and the goal is never reached if they run out.
+     * @param from the bucket that is filled
+     * @param to the bucket that is poured into and emptied
+     * @return the configurations after each move, not including the empty start, or null if the goal isn't reached
+     */
+    private LinkedList<WaterConfiguration> pourPath(int from, int to) {
+        LinkedList<WaterConfiguration> steps = new LinkedList<>();
+        int[] amounts = new int[2];
+        long limit = 2L * ((long) buckets[0] + buckets[1]) + 2;
+        for (long move = 0; move < limit; move++) {
+            if (amounts[from] == 0) {
+                amounts[from] = buckets[from];
+            }
+            else if (amounts[to] == buckets[to]) {
+                amounts[to] = 0;
+            }
+            else {
+                int poured = Math.min(amounts[from], buckets[to] - amounts[to]);
+                amounts[from] -= poured;
+                amounts[to] += poured;
+            }
+            steps.add(new WaterConfiguration(this, amounts.clone()));
+            if (amounts[0] == amount || amounts[1] == amount) {
+                return steps;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Run an instance of the water buckets puzzle. Impossible goals and two bucket puzzles are only answered
+     * without searching when run with -Dwater.shortcuts=true.
      * @param args [0]: desired amount of water to be collected;
      *             [1..N]: the capacities of the N available buckets.
      */
@@ -58,22 +205,51 @@ public class Water {
             // Try catch block for if command line args aren't ints
             try {
                 int amount = Integer.parseInt(args[0]);  // Gets the goal amount from input
-                ArrayList<Integer> buckets = new ArrayList<>();  // Empty ArrayList to store max bucket volumes
-                ArrayList<Integer> emptyBuckets = new ArrayList<>();  // ArrayList to fill with 0s for each bucket
+                int[] buckets = new int[args.length - 1];  // Array to store max bucket volumes
+                int[] emptyBuckets = new int[args.length - 1];  // Array of 0s for each bucket
 
                 // Adds the rest of the command line args as bucket values
                 for (int i = 1; i < args.length; i++) {
-                    buckets.add(Integer.parseInt(args[i]));  // Adds as a max bucket volume
-                    emptyBuckets.add(0);  // Adds a 0 as an empty bucket to pass to the configuration
+                    buckets[i - 1] = Integer.parseInt(args[i]);  // Adds as a max bucket volume
                 }
 
                 Water water = new Water(amount, buckets);  // Creates new water object
 
-                System.out.println("Amount: " + amount + ", Buckets: " + buckets);  // Prints water puzzle info
+                // Prints water puzzle info
+                System.out.println("Amount: " + amount + ", Buckets: " + Arrays.toString(buckets));
 
-                // Creates new solver with a water configuration of the puzzle and an ArrayList of empty buckets
-                Solver<WaterConfiguration> solution = new Solver<>(new WaterConfiguration(water, emptyBuckets));
-                LinkedList<WaterConfiguration> path = solution.solve(true);  // Stores the solution path in a LinkedList
+                // Creates a water configuration of the puzzle with an array of empty buckets. With shortcuts on,
+                // impossible goals and two buckets are answered without searching, otherwise it is solved with
+                // arrays over every configuration when they fit in memory, or with the regular Solver when they
+                // don't
+                WaterConfiguration start = new WaterConfiguration(water, emptyBuckets);
+                LinkedList<WaterConfiguration> path = null;  // Stores the solution path in a LinkedList
+                SolverStats stats = null;  // Measurements of the solve, written out if -Dsolver.stats is set
+                boolean answered = false;  // True if a shortcut answered without searching
+                if (SHORTCUTS) {
+                    answered = water.isUnsolvable();
+                    if (!answered) {
+                        path = water.solveTwoBuckets();
+                        answered = path != null;
+                    }
+                }
+                if (answered) {
+                    // No configurations were searched, so there are no counts to print
+                    System.out.println("Answered analytically, no search");
+                }
+                else if (IndexedSolver.fits(start)) {
+                    IndexedSolver<WaterConfiguration> solver = new IndexedSolver<>(start);
+                    path = solver.solve(true);
+                    stats = solver.getStats();
+                }
+                else {
+                    Solver<WaterConfiguration> solver = new Solver<>(start);
+                    path = solver.solve(true);
+                    stats = solver.getStats();
+                }
+                if (stats != null) {
+                    stats.writeIfRequested();
+                }
 
                 // If the path is null no solution was found
                 if (path == null) {
@@ -83,7 +259,7 @@ public class Water {
                 else {
                     int step = 0;  // Counter for what step its on
                     for (WaterConfiguration config : path) {
-                        System.out.println("Step " + step + ": " + config.getBuckets());  // Prints the step
+                        System.out.println("Step " + step + ": " + config);  // Prints the step
                         step++;  // Increments to next step
                     }
                 }
@@ -0,0 +1,139 @@
+package puzzles.water;
+
+import solver.DelayedSolver;
+import solver.EncodedSolver;
+import solver.Solver;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Checks the analytic answers for Water puzzles against the Solver and measures how much time they save.
+ *
+ * @author Luke Chelius
+ */
+public class WaterBenchmark {
+
+    /**
+     * Makes random puzzles with one to four buckets, solves each with the Solver and with the analytic checks,
+     * and checks that a puzzle is rejected exactly when the Solver finds no solution and that every two bucket
+     * path is a legal sequence of moves as short as the Solver's. Prints how many puzzles each part answered and
+     * the time both took over all of them.
+     * @param count the number of puzzles to make
+     * @param maxCapacity the largest capacity a bucket can have
+     * @param seed the seed for the random puzzles, so a failure can be repeated
+     */
+    private static void analytic(int count, int maxCapacity, long seed) {
+        Random random = new Random(seed);
+        int rejected = 0;
+        int twoBuckets = 0;
+        long searchTime = 0;
+        long analyticTime = 0;
+        for (int n = 0; n < count; n++) {
+            int[] buckets = new int[1 + random.nextInt(4)];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = random.nextInt(maxCapacity + 1);
+            }
+            Water water = new Water(random.nextInt(maxCapacity + 3), buckets);
+            String puzzle = "amount " + water.getAmount() + " with buckets " + Arrays.toString(buckets);
+
+            long begin = System.nanoTime();
+            LinkedList<WaterConfiguration> expected = new Solver<>(new WaterConfiguration(water,
+                    new int[buckets.length])).solve(false);
+            long middle = System.nanoTime();
+            boolean unsolvable = water.isUnsolvable();
+            LinkedList<WaterConfiguration> path = water.solveTwoBuckets();
+            long end = System.nanoTime();
+            searchTime += middle - begin;
+            analyticTime += end - middle;
+
+            if (unsolvable != (expected == null)) {
+                throw new IllegalStateException("isUnsolvable is " + unsolvable + " for " + puzzle);
+            }
+            rejected += unsolvable ? 1 : 0;
+            if (buckets.length != 2 || expected == null) {
+                continue;
+            }
+            if (path == null || path.size() != expected.size()) {
+                throw new IllegalStateException("Two bucket path length differs from Solver for " + puzzle);
+            }
+            if (!path.getFirst().equals(expected.getFirst()) || !path.getLast().isSolution()) {
+                throw new IllegalStateException("Two bucket path doesn't go from the start to a solution for "
+                        + puzzle);
+            }
+            for (int i = 1; i < path.size(); i++) {
+                if (!path.get(i - 1).getNeighbors().contains(path.get(i))) {
+                    throw new IllegalStateException("Two bucket path has an illegal move for " + puzzle);
+                }
+            }
+            twoBuckets++;
+        }
+        System.out.printf("%d puzzles: %d rejected, %d two bucket paths; Solver %.2f ms, analytic %.2f ms%n", count,
+                rejected, twoBuckets, searchTime / 1e6, analyticTime / 1e6);
+    }
+
+    /**
+     * Solves one puzzle with the Solver, the EncodedSolver and the DelayedSolver three times each, checks that the
+     * paths have the same length, and prints how long each took the last time along with the bytes the
+     * DelayedSolver's levels use per visited configuration. Puzzles with many buckets have wide levels, which is
+     * where removing duplicates a level at a time pays off.
+     * @param water the puzzle
+     */
+    private static void delayed(Water water) {
+        long[] time = new long[3];
+        int[] lengths = new int[3];
+        double bytesPerConfig = 0;
+        for (int round = 0; round < 3; round++) {
+            int[] empty = new int[water.getBuckets().length];
+            long begin = System.nanoTime();
+            LinkedList<WaterConfiguration> path = new Solver<>(new WaterConfiguration(water, empty)).solve(false);
+            lengths[0] = path == null ? -1 : path.size();
+            long encoded = System.nanoTime();
+            path = new EncodedSolver<>(new WaterConfiguration(water, empty)).solve(false);
+            lengths[1] = path == null ? -1 : path.size();
+            long delayed = System.nanoTime();
+            DelayedSolver<WaterConfiguration> solver = new DelayedSolver<>(new WaterConfiguration(water, empty));
+            path = solver.solve(false);
+            lengths[2] = path == null ? -1 : path.size();
+            long end = System.nanoTime();
+            if (lengths[1] != lengths[0] || lengths[2] != lengths[0]) {
+                throw new IllegalStateException("Path lengths differ: " + Arrays.toString(lengths));
+            }
+            time[0] = encoded - begin;
+            time[1] = delayed - encoded;
+            time[2] = end - delayed;
+            bytesPerConfig = solver.bytesPerConfig();
+        }
+        System.out.printf("Solver %.0f ms, EncodedSolver %.0f ms, DelayedSolver %.0f ms, %.1f bytes per visited "
+                + "config%n", time[0] / 1e6, time[1] / 1e6, time[2] / 1e6, bytesPerConfig);
+    }
+
+    /**
+     * Runs a benchmark.
+     * @param args [0]: the benchmark to run (analytic or delayed);
+     *             for analytic, [1]: optional number of random puzzles, defaults to 1000; [2]: optional largest
+     *             bucket capacity, defaults to 12; [3]: optional random seed, defaults to 1;
+     *             for delayed, [1]: the amount; [2..N]: the bucket capacities.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java WaterBenchmark analytic [count] [capacity] [seed]");
+            System.out.println("       java WaterBenchmark delayed amount capacity...");
+            return;
+        }
+        switch (args[0]) {
+            case "analytic" -> analytic(args.length > 1 ? Integer.parseInt(args[1]) : 1000,
+                    args.length > 2 ? Integer.parseInt(args[2]) : 12,
+                    args.length > 3 ? Long.parseLong(args[3]) : 1);
+            case "delayed" -> {
+                int[] buckets = new int[args.length - 2];
+                for (int i = 2; i < args.length; i++) {
+                    buckets[i - 2] = Integer.parseInt(args[i]);
+                }
+                delayed(new Water(Integer.parseInt(args[1]), buckets));
+            }
+            default -> System.out.println("Unknown benchmark: " + args[0]);
+        }
+    }
+}
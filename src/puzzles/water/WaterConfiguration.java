@@ -2,13 +2,15 @@ package puzzles.water;
 
 import solver.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Configuration for the Water puzzle for the solver algorithm to use.
  *
  * @author Luke Chelius
  */
-public class WaterConfiguration implements Configuration {
+public class WaterConfiguration implements ReversibleConfiguration, HeuristicConfiguration,
+        EncodableConfiguration, IndexedConfiguration {
 
     /**
      * The water puzzle the configuration is for.
@@ -18,16 +20,26 @@ public class WaterConfiguration implements Configuration {
     /**
      * The amount of water in the buckets for this configuration.
      */
-    private ArrayList<Integer> buckets;
+    private int[] buckets;
+
+    /**
+     * The sum of a mixed key for every bucket and its amount. A move only changes one or two buckets, so the
+     * hash of a neighbor is found by swapping out their keys instead of going over every bucket again.
+     */
+    private long hash;
 
     /**
      * Creates a new water configuration for a water puzzle with a certain amount of water in its buckets.
      * @param water the water puzzle the configuration is for
-     * @param buckets the amount of water in the buckets it represents
+     * @param buckets the amount of water in the buckets it represents, which the configuration keeps
      */
-    public WaterConfiguration(Water water, ArrayList<Integer> buckets) {
+    public WaterConfiguration(Water water, int[] buckets) {
         this.water = water;
         this.buckets = buckets;
+        this.hash = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            hash += key(i, buckets[i]);
+        }
     }
 
     /**
@@ -37,7 +49,8 @@ public class WaterConfiguration implements Configuration {
      */
     public WaterConfiguration(WaterConfiguration other) {
         this.water = other.getWater();
-        this.buckets = new ArrayList<>(other.getBuckets());
+        this.buckets = other.buckets.clone();
+        this.hash = other.hash;
     }
 
     /**
@@ -49,33 +62,45 @@ public class WaterConfiguration implements Configuration {
     }
 
     /**
-     * Returns an ArrayList containing the water in each bucket.
-     * @return an ArrayList with the amount of water in each bucket
+     * Returns an array containing the water in each bucket.
+     * @return an array with the amount of water in each bucket, which must not be changed
      */
-    public ArrayList<Integer> getBuckets() {
+    public int[] getBuckets() {
         return buckets;
     }
 
     /**
      * Returns the max amount of water allowed in each bucket.
-     * @return an ArrayList with the max amount of water allowed in the buckets
+     * @return an array with the max amount of water allowed in the buckets
      */
     public Object getStart() {
         return water.getBuckets();
     }
 
     /**
-     * Turns the configuration into a unique int that cna be hashed.
-     * @return a unique int that represents the configuration
+     * Mixes a bucket and the amount in it into a key, with the finalizer of MurmurHash3 so every bit of both
+     * affects every bit of the key.
+     * @param bucket the index of the bucket
+     * @param amount the amount in the bucket
+     * @return the key
+     */
+    private static long key(int bucket, int amount) {
+        long key = ((long) bucket << 32) | amount;
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Turns the configuration into an int that can be hashed, from the keys of all its buckets.
+     * @return an int that represents the configuration
      */
     @Override
     public int hashCode() {
-        int hash = 0;
-        // Sums all the buckets' water amounts
-        for (Integer bucket : buckets) {
-            hash += bucket;
-        }
-        return hash;
+        return (int) (hash ^ (hash >>> 32));
     }
 
     /**
@@ -87,7 +112,7 @@ public class WaterConfiguration implements Configuration {
     @Override
     public boolean equals(Object o) {
         if (o instanceof WaterConfiguration other) {
-            return buckets.equals(other.getBuckets());  // Equal if buckets are the same
+            return hash == other.hash && Arrays.equals(buckets, other.buckets);  // Equal if buckets are the same
         }
         return false;
     }
@@ -98,7 +123,77 @@ public class WaterConfiguration implements Configuration {
      */
     @Override
     public boolean isSolution() {
-        return buckets.contains(water.getAmount());
+        for (int amount : buckets) {
+            if (amount == water.getAmount()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hands the water configuration's neighbors to a consumer, which can be gotten by pouring one of the buckets
+     * out completely, filling a bucket completely, or pouring one bucket into another until its full or the bucket
+     * is empty. For each bucket i the order is empty i, fill i, then pour i into every other bucket.
+     * @param sink the consumer that is given each neighbor
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachNeighbor(Consumer sink) {
+        int[] capacities = water.getBuckets();
+
+        // Every move that changes anything changes a different set of buckets or moves water the other way, so
+        // skipping moves that leave the buckets the same is enough to never give the same neighbor twice. The one
+        // exception is a negative capacity, where pouring can move a negative amount and pouring i into j can
+        // undo the same change as pouring j into i
+        for (int i = 0; i < buckets.length; i++) {
+            int amountI = buckets[i];
+            int capacityI = capacities[i];
+
+            // Completely empties bucket i
+            if (amountI != 0) {
+                sink.accept(withAmounts(i, 0, i, 0));
+            }
+
+            // Completely fills bucket i, which is the same as emptying it when it holds nothing
+            if (amountI != capacityI && capacityI != 0) {
+                sink.accept(withAmounts(i, capacityI, i, capacityI));
+            }
+
+            // Pours bucket i into each other bucket until i is empty or the other is full
+            for (int j = 0; j < buckets.length; j++) {
+                int poured = Math.min(amountI, capacities[j] - buckets[j]);
+                if (i != j && poured != 0
+                        && (j > i || poured != -Math.min(buckets[j], capacityI - amountI))) {
+                    sink.accept(withAmounts(i, amountI - poured, j, buckets[j] + poured));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the configuration with two buckets set to new amounts.
+     * @param i the first bucket
+     * @param amountI the new amount in the first bucket
+     * @param j the second bucket, which may be the same as the first
+     * @param amountJ the new amount in the second bucket
+     * @return the new configuration
+     */
+    private WaterConfiguration withAmounts(int i, int amountI, int j, int amountJ) {
+        WaterConfiguration newConfig = new WaterConfiguration(this);
+        newConfig.setAmount(i, amountI);
+        newConfig.setAmount(j, amountJ);
+        return newConfig;
+    }
+
+    /**
+     * Sets the amount in a bucket and updates the hash to match.
+     * @param bucket the bucket
+     * @param amount the new amount in it
+     */
+    private void setAmount(int bucket, int amount) {
+        hash += key(bucket, amount) - key(bucket, buckets[bucket]);
+        buckets[bucket] = amount;
     }
 
     /**
@@ -110,57 +205,215 @@ public class WaterConfiguration implements Configuration {
     @Override
     public LinkedList<WaterConfiguration> getNeighbors() {
         LinkedList<WaterConfiguration> neighbors = new LinkedList<>();  // LinkedList to store the neighbors
+        forEachNeighbor(neighbor -> neighbors.add((WaterConfiguration) neighbor));
+        return neighbors;
+    }
 
-        // Loops through all the configurations neighbors
-        for (int i = 0; i < buckets.size(); i++) {
+    /**
+     * Returns the configuration with the amounts in each group of buckets with the same capacity sorted from
+     * smallest to largest. Swapping two buckets of the same capacity can't change what moves are possible or
+     * whether a bucket holds the goal amount, so all orders of the amounts in a group are searched as one.
+     * @return the canonical form of the configuration, itself if it is already sorted
+     */
+    @Override
+    public WaterConfiguration canonical() {
+        int[][] groups = water.getGroups();
 
-            // Copy constructor to create a new config with a copy of the buckets' amounts
-            WaterConfiguration newConfig = new WaterConfiguration(this);
-            newConfig.getBuckets().set(i, 0);  // Completely empties the current bucket
+        // Most configurations are already sorted, which can be checked without copying anything
+        boolean isSorted = true;
+        for (int g = 0; g < groups.length && isSorted; g++) {
+            for (int k = 1; k < groups[g].length && isSorted; k++) {
+                isSorted = buckets[groups[g][k - 1]] <= buckets[groups[g][k]];
+            }
+        }
+        if (isSorted) {
+            return this;
+        }
 
-            // Adds it to the neighbors if it isn't already in the list of neighbors and is not equal to the current
-            // configuration
-            if (!this.equals(newConfig) && !neighbors.contains(newConfig)) {
-                neighbors.add(newConfig);
+        // Puts the amounts back into each group's buckets smallest first
+        int[] sorted = buckets.clone();
+        for (int[] group : groups) {
+            int[] amounts = new int[group.length];
+            for (int k = 0; k < group.length; k++) {
+                amounts[k] = buckets[group[k]];
             }
+            Arrays.sort(amounts);
+            for (int k = 0; k < group.length; k++) {
+                sorted[group[k]] = amounts[k];
+            }
+        }
+        return new WaterConfiguration(water, sorted);
+    }
 
-            newConfig = new WaterConfiguration(this);  // Resets the new config to the buckets' amounts again
-            newConfig.getBuckets().set(i, water.getBuckets().get(i));  // Completely fills the bucket
+    /**
+     * Returns a LinkedList of every configuration where at least one bucket holds the goal amount, with the
+     * other buckets holding any amount they can fit.
+     * @return a LinkedList of all goal configurations
+     */
+    @Override
+    public LinkedList<WaterConfiguration> getGoals() {
+        LinkedHashSet<WaterConfiguration> goals = new LinkedHashSet<>();  // Set so each goal is only listed once
+        int[] max = water.getBuckets();
 
-            // Adds it to the neighbors if it isn't already in the list of neighbors and is not equal to the current
-            // configuration
-            if (!this.equals(newConfig) && !neighbors.contains(newConfig)) {
-                neighbors.add(newConfig);
+        // Loops through every bucket that is big enough to hold the goal amount
+        for (int i = 0; i < max.length; i++) {
+            if (water.getAmount() > max[i]) {
+                continue;
             }
 
-            // Nested loop to pour bucket into another one
-            for (int j = 0; j < buckets.size(); j++) {
+            int[] amounts = new int[max.length];
+            amounts[i] = water.getAmount();
 
-                // Can't pour a bucket into itself
-                if (i != j) {
-                    newConfig = new WaterConfiguration(this);  // Resets new config to the buckets' amounts again
-
-                    // Completely fills another bucket and removes that water from the other if full enough
-                    if (buckets.get(j) + buckets.get(i) >= water.getBuckets().get(j)) {
-                        int difference = water.getBuckets().get(j) - buckets.get(j);  // Amount needed to fill bucket j
-                        newConfig.getBuckets().set(j, water.getBuckets().get(j));  // Bucket j to max
-                        newConfig.getBuckets().set(i, buckets.get(i) - difference);  // Removes water from bucket i
+            // Counts through every amount of the other buckets like an odometer, bucket i stays fixed
+            while (true) {
+                goals.add(new WaterConfiguration(water, amounts.clone()));
+                int j = 0;
+                while (j < max.length && (j == i || amounts[j] == max[j])) {
+                    if (j != i) {
+                        amounts[j] = 0;
                     }
-                    // Adds all the bucket's water to the other otherwise and sets it to 0
-                    else {
-                        newConfig.getBuckets().set(j, buckets.get(j) + buckets.get(i));  // Adds i's water to j
-                        newConfig.getBuckets().set(i, 0);  // Bucket i to 0
+                    j++;
+                }
+                if (j == max.length) {
+                    break;
+                }
+                amounts[j]++;
+            }
+        }
+        return new LinkedList<>(goals);
+    }
+
+    /**
+     * Returns a LinkedList of the configurations that have this one as a neighbor. An empty bucket could have
+     * been emptied from any amount, a full bucket could have been filled from any amount, and a pour from
+     * bucket i into bucket j either left j full or left i empty.
+     * @return a LinkedList of the configuration's predecessors
+     */
+    @Override
+    public LinkedList<WaterConfiguration> getPredecessors() {
+        LinkedHashSet<WaterConfiguration> predecessors = new LinkedHashSet<>();  // Set to skip duplicates
+        int[] max = water.getBuckets();
+
+        for (int i = 0; i < buckets.length; i++) {
+            // Bucket i was just emptied or just filled, so it could have held anything else before
+            if (buckets[i] == 0 || buckets[i] == max[i]) {
+                for (int amount = 0; amount <= max[i]; amount++) {
+                    if (amount != buckets[i]) {
+                        predecessors.add(withAmounts(i, amount, i, amount));
                     }
+                }
+            }
 
-                    // Adds it to the neighbors if it isn't already in the list of neighbors and is not equal to the current
-                    // configuration
-                    if (!this.equals(newConfig) && !neighbors.contains(newConfig)) {
-                        neighbors.add(newConfig);
+            // Bucket i was poured into bucket j
+            for (int j = 0; j < buckets.length; j++) {
+                if (i == j) {
+                    continue;
+                }
+                // Bucket j was filled, so together they held what i holds now plus a full j
+                if (buckets[j] == max[j]) {
+                    int total = buckets[i] + max[j];
+                    for (int amountJ = 0; amountJ < max[j]; amountJ++) {
+                        if (total - amountJ <= max[i]) {
+                            predecessors.add(withAmounts(i, total - amountJ, j, amountJ));
+                        }
+                    }
+                }
+                // Bucket i was emptied into j without filling it, so together they held what j holds now
+                else if (buckets[i] == 0) {
+                    for (int amountI = 1; amountI <= Math.min(buckets[j], max[i]); amountI++) {
+                        predecessors.add(withAmounts(i, amountI, j, buckets[j] - amountI));
                     }
                 }
             }
         }
+        return new LinkedList<>(predecessors);
+    }
 
-        return neighbors;
+    /**
+     * Returns 0 if a bucket already has the goal amount and 1 otherwise, since at least one more move is needed
+     * to get the goal amount into a bucket.
+     * @return 0 for a solution, 1 otherwise
+     */
+    @Override
+    public int heuristic() {
+        return isSolution() ? 0 : 1;
+    }
+
+    /**
+     * Packs the amounts in the buckets into a long as a number where each digit is a bucket and the base of
+     * each digit is one more than that bucket's capacity.
+     * @return the key of the configuration
+     * @throws ArithmeticException if the capacities are too big for the key to fit in a long
+     */
+    @Override
+    public long encode() {
+        long key = 0;
+        for (int i = buckets.length - 1; i >= 0; i--) {
+            key = Math.addExact(Math.multiplyExact(key, water.getBuckets()[i] + 1), buckets[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Builds the configuration of the same puzzle with the bucket amounts a key was made from.
+     * @param key a key returned by encode
+     * @return the configuration the key represents
+     */
+    @Override
+    public WaterConfiguration decode(long key) {
+        int[] capacities = water.getBuckets();
+        int[] amounts = new int[capacities.length];
+        for (int i = 0; i < capacities.length; i++) {
+            amounts[i] = (int) (key % (capacities[i] + 1));
+            key /= capacities[i] + 1;
+        }
+        return new WaterConfiguration(water, amounts);
+    }
+
+    /**
+     * Returns the index of the configuration, which is its key from encode.
+     * @return the index of the configuration
+     * @throws ArithmeticException if the index doesn't fit in an int
+     */
+    @Override
+    public int index() {
+        return Math.toIntExact(encode());
+    }
+
+    /**
+     * Builds the configuration of the same puzzle with a given index.
+     * @param index a number from 0 up to stateSpaceSize() - 1
+     * @return the configuration with that index
+     */
+    @Override
+    public WaterConfiguration fromIndex(int index) {
+        return decode(index);
+    }
+
+    /**
+     * Returns the number of configurations of the puzzle, the product of one more than each bucket's capacity.
+     * @return the size of the state space
+     * @throws ArithmeticException if the size doesn't fit in an int, or a capacity is negative, since pouring
+     * into such a bucket has no bound on the amounts it can reach
+     */
+    @Override
+    public int stateSpaceSize() {
+        int size = 1;
+        for (int capacity : water.getBuckets()) {
+            if (capacity < 0) {
+                throw new ArithmeticException("Negative capacity " + capacity + " has no bounded state space");
+            }
+            size = Math.multiplyExact(size, capacity + 1);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the amounts in the buckets in the same form as a list, for example [0, 3, 5].
+     * @return a String representation of the configuration
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(buckets);
     }
 }
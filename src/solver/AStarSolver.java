@@ -0,0 +1,161 @@
+package solver;
+
+import java.util.*;
+
+/**
+ * An A* search that always expands the configuration with the smallest number of moves so far plus the
+ * estimate from {@link HeuristicConfiguration#heuristic()}. Configurations without a heuristic are treated as
+ * having an estimate of 0, which makes this a plain breadth first search.
+ *
+ * @author Luke Chelius
+ */
+public class AStarSolver<C extends Configuration> {
+
+    /**
+     * An entry in the frontier, a configuration with the cost it was reached with.
+     * @param config the configuration
+     * @param moves the number of moves from the start to the configuration
+     * @param estimate moves plus the heuristic of the configuration
+     * @param order when the entry was added, used to break ties in the order they were found
+     */
+    private record Entry<C>(C config, int moves, int estimate, long order) {}
+
+    /**
+     * The frontier, ordered by lowest estimate, then most moves so far, then the order they were found.
+     */
+    private PriorityQueue<Entry<C>> frontier;
+
+    /**
+     * HashMap of the previously visited nodes to their parent on the shortest known path.
+     */
+    private HashMap<C, C> predecessorMap;
+
+    /**
+     * The fewest moves from the start found so far to each visited config.
+     */
+    private HashMap<C, Integer> moves;
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private int totalConfigs;
+
+    /**
+     * The number of configurations whose neighbors were generated.
+     */
+    private int expanded;
+
+    /**
+     * Creates a new AStarSolver for a starting configuration.
+     * @param start the starting configuration
+     */
+    public AStarSolver(C start) {
+        this.frontier = new PriorityQueue<>(Comparator.<Entry<C>>comparingInt(Entry::estimate)
+                .thenComparing(Comparator.<Entry<C>>comparingInt(Entry::moves).reversed())
+                .thenComparingLong(Entry::order));
+        this.predecessorMap = new HashMap<>();
+        this.moves = new HashMap<>();
+        this.start = start;
+        this.totalConfigs = 0;
+        this.expanded = 0;
+    }
+
+    /**
+     * Returns the heuristic of a config, or 0 if its puzzle doesn't provide one.
+     * @param config the configuration to estimate
+     * @return the estimated moves left
+     */
+    private int estimate(C config) {
+        return config instanceof HeuristicConfiguration<?> h ? h.heuristic() : 0;
+    }
+
+    /**
+     * Performs A* from the start configuration. A config is reopened if a shorter way to it is found later,
+     * so the path is the shortest one as long as the heuristic never overestimates.
+     * @param print a boolean, true to print the total, unique and expanded configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     */
+    @SuppressWarnings("unchecked")
+    public LinkedList<C> solve(boolean print) {
+        long order = 0;
+        if (estimate(start) < HeuristicConfiguration.UNREACHABLE) {
+            frontier.add(new Entry<>(start, 0, estimate(start), order++));
+        }
+        predecessorMap.put(start, null);
+        moves.put(start, 0);
+        totalConfigs++;  // Adds 1 to the configuration count
+
+        // Runs until the frontier is empty
+        while (!frontier.isEmpty()) {
+            Entry<C> entry = frontier.remove();
+            C config = entry.config();
+
+            // Skips entries that were replaced by a shorter way to the same config
+            if (entry.moves() > moves.get(config)) {
+                continue;
+            }
+
+            if (config.isSolution()) {
+                printConfigs(print);
+
+                LinkedList<C> solution = new LinkedList<>();  // Empty LinkedList for the solution configs
+
+                // Runs until it gets back to the start configuration
+                while (config != null) {
+                    solution.add(0, config);  // Adds the configuration to the front of the LinkedList
+                    config = predecessorMap.get(config);  // Gets the previous config to the current one
+                }
+                return solution;
+            }
+
+            expanded++;
+            int next = entry.moves() + 1;
+            for (C neighbor : (LinkedList<C>) config.getNeighbors()) {
+                totalConfigs++;  // Adds 1 to the total config count
+
+                // Adds the neighbor if it is new or was only reached with more moves before
+                Integer known = moves.get(neighbor);
+                if (known == null || next < known) {
+                    moves.put(neighbor, next);
+                    predecessorMap.put(neighbor, config);
+                    int estimate = estimate(neighbor);
+
+                    // Configs that can never reach a solution are remembered but never expanded
+                    if (estimate < HeuristicConfiguration.UNREACHABLE) {
+                        frontier.add(new Entry<>(neighbor, next, next + estimate, order++));
+                    }
+                }
+            }
+        }
+
+        // Runs if no solution was found
+        printConfigs(print);
+        return null;
+    }
+
+    /**
+     * Returns the number of configurations whose neighbors were generated during the last solve.
+     * @return the number of expanded configurations
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Prints the total, unique and expanded config counts.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + predecessorMap.size());  // Prints the unique config count
+            System.out.println("Expanded configs: " + expanded);  // Prints how many configs were expanded
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package solver;
+
+import java.util.*;
+
+/**
+ * A BFS that grows from the start and from every goal at the same time and stops when the two searches meet.
+ * Puzzles that implement {@link ReversibleConfiguration} only have to explore about as deep as half the
+ * solution from either end. Any other configuration is handed to the regular {@link Solver}.
+ *
+ * @author Luke Chelius
+ */
+public class BidirectionalSolver<C extends Configuration> {
+
+    /**
+     * The parent of every config reached from the start, the start maps to null.
+     */
+    private HashMap<C, C> forwardMap;
+
+    /**
+     * The number of moves from the start to every config reached from the start.
+     */
+    private HashMap<C, Integer> forwardDepth;
+
+    /**
+     * The next config toward a goal for every config reached from the goals, the goals map to null.
+     */
+    private HashMap<C, C> backwardMap;
+
+    /**
+     * The number of moves to a goal from every config reached from the goals.
+     */
+    private HashMap<C, Integer> backwardDepth;
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private int totalConfigs;
+
+    /**
+     * Creates a new BidirectionalSolver for a starting configuration.
+     * @param start the starting configuration
+     */
+    public BidirectionalSolver(C start) {
+        this.forwardMap = new HashMap<>();
+        this.forwardDepth = new HashMap<>();
+        this.backwardMap = new HashMap<>();
+        this.backwardDepth = new HashMap<>();
+        this.start = start;
+        this.totalConfigs = 0;
+    }
+
+    /**
+     * Searches from both ends, always expanding a whole level of the smaller frontier. The level where the
+     * searches first touch is finished before stopping, and the meeting config with the fewest total moves is
+     * used, so the path is as short as the one {@link Solver} finds.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     */
+    @SuppressWarnings("unchecked")
+    public LinkedList<C> solve(boolean print) {
+        // Puzzles that can't be run backwards use the regular BFS
+        if (!(start instanceof ReversibleConfiguration)) {
+            return new Solver<>(start).solve(print);
+        }
+
+        forwardMap.put(start, null);
+        forwardDepth.put(start, 0);
+        totalConfigs++;
+        if (start.isSolution()) {
+            printConfigs(print);
+            return new LinkedList<>(List.of(start));
+        }
+
+        List<C> forward = new ArrayList<>(List.of(start));
+        List<C> backward = new ArrayList<>();
+        for (Object goal : ((ReversibleConfiguration<?>) start).getGoals()) {
+            totalConfigs++;
+            if (!backwardMap.containsKey((C) goal)) {
+                backwardMap.put((C) goal, null);
+                backwardDepth.put((C) goal, 0);
+                backward.add((C) goal);
+            }
+        }
+
+        // Runs until one side runs out of configurations, then the two can never meet
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            C meet;
+            if (forward.size() <= backward.size()) {
+                forward = expand(forward, true);
+                meet = bestMeeting(forward);
+            }
+            else {
+                backward = expand(backward, false);
+                meet = bestMeeting(backward);
+            }
+
+            if (meet != null) {
+                printConfigs(print);
+                return buildPath(meet);
+            }
+        }
+
+        // Runs if no solution was found
+        printConfigs(print);
+        return null;
+    }
+
+    /**
+     * Expands one whole level of one side of the search.
+     * @param level the level to expand
+     * @param isForward true to follow moves forward from the start, false to follow them backward from the goals
+     * @return the next level of that side
+     */
+    @SuppressWarnings("unchecked")
+    private List<C> expand(List<C> level, boolean isForward) {
+        HashMap<C, C> map = isForward ? forwardMap : backwardMap;
+        HashMap<C, Integer> depth = isForward ? forwardDepth : backwardDepth;
+
+        List<C> next = new ArrayList<>();
+        for (C config : level) {
+            LinkedList<C> neighbors = isForward ? config.getNeighbors()
+                    : ((ReversibleConfiguration<C>) config).getPredecessors();
+            for (C neighbor : neighbors) {
+                totalConfigs++;  // Adds 1 to the total config count
+                if (!map.containsKey(neighbor)) {
+                    map.put(neighbor, config);
+                    depth.put(neighbor, depth.get(config) + 1);
+                    next.add(neighbor);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Finds the config in a newly expanded level that both sides have reached with the fewest total moves.
+     * @param level the newly expanded level
+     * @return the best meeting config, or null if the sides haven't met
+     */
+    private C bestMeeting(List<C> level) {
+        C best = null;
+        int bestLength = Integer.MAX_VALUE;
+        for (C config : level) {
+            if (forwardDepth.containsKey(config) && backwardDepth.containsKey(config)) {
+                int length = forwardDepth.get(config) + backwardDepth.get(config);
+                if (length < bestLength) {
+                    best = config;
+                    bestLength = length;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Joins the path from the start to the meeting config with the path from the meeting config to its goal.
+     * @param meet the config both sides reached
+     * @return the full path from the start to a goal
+     */
+    private LinkedList<C> buildPath(C meet) {
+        LinkedList<C> solution = new LinkedList<>();
+        // Walks back to the start, adding each config to the front
+        for (C config = meet; config != null; config = forwardMap.get(config)) {
+            solution.add(0, config);
+        }
+        // Walks forward to the goal, adding each config to the end
+        for (C config = backwardMap.get(meet); config != null; config = backwardMap.get(config)) {
+            solution.add(config);
+        }
+        return solution;
+    }
+
+    /**
+     * Prints the total and unique config counts, unique counting each side separately.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + (forwardMap.size() + backwardMap.size()));
+        }
+    }
+}
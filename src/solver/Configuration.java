@@ -1,6 +1,7 @@
 package solver;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Configuration abstraction for the solver algorithm
@@ -46,5 +47,59 @@ public interface Configuration<E> {
      */
     public LinkedList<E> getNeighbors();
 
+    /**
+     * Hands each neighbor of the configuration to a consumer as soon as it is made, in the same order as
+     * getNeighbors, so a solver can check it for duplicates without a list being built first. The default
+     * goes through getNeighbors, puzzles override it to skip the list and build getNeighbors on top of it.
+     * @param sink the consumer that is given each neighbor
+     */
+    default void forEachNeighbor(Consumer<? super E> sink) {
+        for (E neighbor : getNeighbors()) {
+            sink.accept(neighbor);
+        }
+    }
+
+    /**
+     * Returns one chosen configuration out of every configuration that is the same as this one up to a symmetry
+     * of the puzzle, so the solver only searches one of them. The symmetry has to keep solutions solutions and
+     * neighbors neighbors. Solvers find duplicates by the canonical form but still return the real configs in
+     * the path. By default every configuration is its own canonical form.
+     * @return the canonical form of the configuration
+     */
+    @SuppressWarnings("unchecked")
+    default E canonical() {
+        return (E) this;
+    }
+
+    /**
+     * Checks if the configuration can be told, without searching, to never reach a solution, so a solver that
+     * is pruning can skip it and everything after it. The check has to be quick and must never be true for a
+     * configuration that can reach a solution. By default nothing is a dead end.
+     * @return true if no solution can be reached from the configuration, false if one might be
+     */
+    default boolean isDeadEnd() {
+        return false;
+    }
+
+    /**
+     * Returns the number of the move that turns this configuration into a neighbor, so a {@link SolutionPath}
+     * can keep a path as the start and one small number per move. By default a move is the index of the neighbor
+     * in getNeighbors, puzzles override it with something cheaper to undo, like a direction.
+     * @param neighbor a neighbor of the configuration
+     * @return the number of the move, not negative, or -1 if it isn't a neighbor
+     */
+    default int moveTo(E neighbor) {
+        return getNeighbors().indexOf(neighbor);
+    }
+
+    /**
+     * Makes the neighbor that a move numbered by moveTo leads to.
+     * @param move the number of the move
+     * @return the neighbor
+     */
+    default E move(int move) {
+        return getNeighbors().get(move);
+    }
+
 
 }
@@ -0,0 +1,360 @@
+package solver;
+
+import java.util.*;
+
+/**
+ * A BFS for puzzles that implement {@link EncodableConfiguration} that finds duplicates in bulk rather than one at
+ * a time. {@link Solver} looks every neighbor up in a hash table as soon as it is made, which is a jump to a
+ * random place in memory for each one. Here the keys of a whole level's neighbors are collected in a buffer with
+ * the index of their parent, sorted, and then walked alongside the sorted earlier levels, so every array is read
+ * from front to back and nothing is looked up at random.
+ * <p>
+ * Each level is kept as a {@link LongBlocks} of its sorted keys, with the index of each key's parent in the level
+ * before, which is all the path needs. When every move can be undone, a neighbor of a level can only be in that
+ * level, the one before or the one after, so setUndirected(true) only compares against the last two levels.
+ * Otherwise a move that can't be undone can lead to a configuration found any number of levels before, so the
+ * levels older than the last two are also merged into sorted runs, two runs of about the same size being merged
+ * into one, which keeps the number of runs to compare against to the log of the visited count however deep the
+ * search goes. Within a level configurations are expanded in key order, so the path has the same length as the
+ * one {@link Solver} finds but may not be the same path.
+ *
+ * @author Luke Chelius
+ */
+public class DelayedSolver<C extends EncodableConfiguration> {
+
+    /**
+     * The parent index stored for the start configuration.
+     */
+    private static final int NO_PARENT = -1;
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * True if every move can be undone, so only the last two levels have to be compared against.
+     */
+    private boolean undirected;
+
+    /**
+     * The sorted keys of each level.
+     */
+    private ArrayList<LongBlocks> levels;
+
+    /**
+     * The index of each key's parent in the level before, at the same index as the key.
+     */
+    private ArrayList<int[]> parents;
+
+    /**
+     * The keys of the levels older than the last two, merged into runs that each hold at least twice as many keys
+     * as the next, when not undirected.
+     */
+    private ArrayList<LongBlocks> runs;
+
+    /**
+     * The number of levels, from the start, whose keys are in the runs.
+     */
+    private int levelsInRuns;
+
+    /**
+     * The keys of the neighbors found in the current level.
+     */
+    private long[] keys;
+
+    /**
+     * The index of the parent of each neighbor, at the same index as its key.
+     */
+    private int[] keyParents;
+
+    /**
+     * The number of neighbors in the buffer.
+     */
+    private int buffered;
+
+    /**
+     * The index of the configuration being expanded in its level.
+     */
+    private int expanding;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private long totalConfigs;
+
+    /**
+     * The number of configurations whose neighbors were generated.
+     */
+    private long expanded;
+
+    /**
+     * The number of bytes of earlier levels read while removing duplicates.
+     */
+    private long bytesScanned;
+
+    /**
+     * Creates a new DelayedSolver.
+     * @param start the starting configuration
+     */
+    public DelayedSolver(C start) {
+        this.start = start;
+        this.undirected = false;
+        this.levels = new ArrayList<>();
+        this.parents = new ArrayList<>();
+        this.runs = new ArrayList<>();
+        this.keys = new long[1024];
+        this.keyParents = new int[1024];
+    }
+
+    /**
+     * Sets whether every move of the puzzle can be undone. If so, a level's neighbors are only compared against
+     * the last two levels, otherwise against every level. Off by default.
+     * @param undirected true if every move can be undone
+     */
+    public void setUndirected(boolean undirected) {
+        this.undirected = undirected;
+    }
+
+    /**
+     * Performs BFS one level at a time, removing duplicates from each new level in bulk.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     */
+    @SuppressWarnings("unchecked")
+    public LinkedList<C> solve(boolean print) {
+        levels.add(new LongBlocks(new long[]{start.encode()}, 1));
+        parents.add(new int[]{NO_PARENT});
+        totalConfigs++;  // Adds 1 to the configuration count
+
+        // Runs until a level has no configurations in it
+        for (int depth = 0; levels.get(depth).size() > 0; depth++) {
+            buffered = 0;
+            LongBlocks.Cursor cursor = levels.get(depth).cursor();
+            for (expanding = 0; cursor.hasNext(); expanding++) {
+                C config = (C) start.decode(cursor.next());
+                if (config.isSolution()) {
+                    printConfigs(print);
+                    return buildPath(config, depth, expanding);
+                }
+                expanded++;
+                config.forEachNeighbor(neighbor -> buffer(((C) neighbor).encode()));
+            }
+
+            sort(keys, keyParents, buffered);
+            int unique = removeDuplicates(depth);
+            levels.add(new LongBlocks(keys, unique));
+            parents.add(Arrays.copyOf(keyParents, unique));
+            if (!undirected && depth > 0) {
+                addRun(levels.get(depth - 1));
+            }
+        }
+
+        // Runs if no solution was found
+        printConfigs(print);
+        return null;
+    }
+
+    /**
+     * Adds a neighbor's key to the buffer along with the index of the configuration it was found from, growing
+     * the buffer if it is full.
+     * @param key the key of the neighbor
+     */
+    private void buffer(long key) {
+        totalConfigs++;  // Adds 1 to the total config count
+        if (buffered == keys.length) {
+            keys = Arrays.copyOf(keys, buffered * 2);
+            keyParents = Arrays.copyOf(keyParents, buffered * 2);
+        }
+        keys[buffered] = key;
+        keyParents[buffered] = expanding;
+        buffered++;
+    }
+
+    /**
+     * Compacts the sorted buffer to one copy of each key that isn't in the levels or runs it is compared against,
+     * keeping the first parent it was found from.
+     * @param depth the depth of the level that was expanded
+     * @return the number of keys left at the front of the buffer
+     */
+    private int removeDuplicates(int depth) {
+        List<LongBlocks> compared = new ArrayList<>();
+        if (!undirected) {
+            compared.addAll(runs);
+        }
+        for (int level = undirected ? Math.max(0, depth - 1) : levelsInRuns; level <= depth; level++) {
+            compared.add(levels.get(level));
+        }
+        LongBlocks.Cursor[] cursors = new LongBlocks.Cursor[compared.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = compared.get(i).cursor();
+        }
+
+        int unique = 0;
+        for (int i = 0; i < buffered; i++) {
+            long key = keys[i];
+            // Only the first copy of a key is checked, the sort left the one found first in front
+            if (i > 0 && key == keys[i - 1]) {
+                continue;
+            }
+            boolean seen = false;
+            for (int c = 0; c < cursors.length && !seen; c++) {
+                seen = cursors[c].contains(key);
+            }
+            if (!seen) {
+                keyParents[unique] = keyParents[i];
+                keys[unique++] = key;
+            }
+        }
+        for (LongBlocks.Cursor cursor : cursors) {
+            bytesScanned += cursor.getBytesRead();
+        }
+        return unique;
+    }
+
+    /**
+     * Adds the keys of a level to the runs, then merges the newest two runs while the older one has no more than
+     * twice as many keys as the newer.
+     * @param level the oldest level not in the runs yet
+     */
+    private void addRun(LongBlocks level) {
+        runs.add(level);
+        levelsInRuns++;
+        while (runs.size() > 1 && runs.get(runs.size() - 2).size() <= 2 * runs.get(runs.size() - 1).size()) {
+            LongBlocks newer = runs.remove(runs.size() - 1);
+            LongBlocks older = runs.remove(runs.size() - 1);
+
+            // The runs have no keys in common, since each level only holds keys no earlier level has
+            long[] merged = new long[older.size() + newer.size()];
+            LongBlocks.Cursor a = older.cursor();
+            LongBlocks.Cursor b = newer.cursor();
+            long nextA = a.hasNext() ? a.next() : Long.MAX_VALUE;
+            long nextB = b.hasNext() ? b.next() : Long.MAX_VALUE;
+            for (int i = 0; i < merged.length; i++) {
+                if (nextA < nextB) {
+                    merged[i] = nextA;
+                    nextA = a.hasNext() ? a.next() : Long.MAX_VALUE;
+                }
+                else {
+                    merged[i] = nextB;
+                    nextB = b.hasNext() ? b.next() : Long.MAX_VALUE;
+                }
+            }
+            runs.add(new LongBlocks(merged, merged.length));
+        }
+    }
+
+    /**
+     * Sorts keys in increasing order along with the values at the same indexes, a byte at a time from the lowest
+     * byte. The sort is stable, so equal keys keep the order they were found in, and bytes that are the same in
+     * every key are skipped.
+     * @param keys the keys to sort
+     * @param values the values that move with the keys
+     * @param size the number of keys to sort
+     */
+    private static void sort(long[] keys, int[] values, int size) {
+        long[] keyTemp = new long[size];
+        int[] valueTemp = new int[size];
+        long[] fromKeys = keys;
+        int[] fromValues = values;
+        long[] toKeys = keyTemp;
+        int[] toValues = valueTemp;
+        int[] counts = new int[257];
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[(int) (fromKeys[i] >>> shift & 0xFF) + 1]++;
+            }
+            if (size == 0 || counts[(int) (fromKeys[0] >>> shift & 0xFF) + 1] == size) {
+                continue;
+            }
+            for (int b = 0; b < 256; b++) {
+                counts[b + 1] += counts[b];
+            }
+            for (int i = 0; i < size; i++) {
+                int to = counts[(int) (fromKeys[i] >>> shift & 0xFF)]++;
+                toKeys[to] = fromKeys[i];
+                toValues[to] = fromValues[i];
+            }
+            long[] swapKeys = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swapKeys;
+            int[] swapValues = fromValues;
+            fromValues = toValues;
+            toValues = swapValues;
+        }
+        if (fromKeys != keys) {
+            System.arraycopy(fromKeys, 0, keys, 0, size);
+            System.arraycopy(fromValues, 0, values, 0, size);
+        }
+    }
+
+    /**
+     * Builds the path to a solution by following the parent indexes back through the levels.
+     * @param goal the solution configuration
+     * @param depth the level it is in
+     * @param index its index in the level
+     * @return the path from the start to the goal
+     */
+    @SuppressWarnings("unchecked")
+    private LinkedList<C> buildPath(C goal, int depth, int index) {
+        LinkedList<C> solution = new LinkedList<>();  // Empty LinkedList for the solution configs
+        solution.add(goal);
+        for (int parent = parents.get(depth)[index]; depth > 0; parent = parents.get(depth)[parent]) {
+            depth--;
+            solution.add(0, (C) start.decode(levels.get(depth).get(parent)));
+        }
+        return solution;
+    }
+
+    /**
+     * Returns the number of configurations whose neighbors were generated during the last solve.
+     * @return the number of expanded configurations
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Returns the number of bytes of earlier levels read in order while removing duplicates, which takes the
+     * place of the random hash table probes {@link Solver} makes for each neighbor.
+     * @return the bytes scanned
+     */
+    public long getBytesScanned() {
+        return bytesScanned;
+    }
+
+    /**
+     * Returns the number of bytes used by the levels, their parent indexes and the runs for every configuration in
+     * them.
+     * @return the bytes per visited configuration
+     */
+    public double bytesPerConfig() {
+        long bytes = 0;
+        long unique = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            bytes += levels.get(level).memoryBytes() + 4L * parents.get(level).length;
+            unique += levels.get(level).size();
+        }
+        for (LongBlocks run : runs) {
+            bytes += run.memoryBytes();
+        }
+        return unique == 0 ? 0 : (double) bytes / unique;
+    }
+
+    /**
+     * Prints the total and unique config counts the same way {@link Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            long unique = 0;
+            for (LongBlocks level : levels) {
+                unique += level.size();
+            }
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + unique);  // Prints the unique config count
+        }
+    }
+}
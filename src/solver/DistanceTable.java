@@ -0,0 +1,175 @@
+package solver;
+
+import java.util.*;
+
+/**
+ * The exact number of moves from every configuration reachable from a start to its nearest solution. The table
+ * is built by a forward search that numbers every reachable configuration and records its moves, followed by a
+ * breadth first search backward from all of the solutions along the reversed moves. Afterwards only a
+ * {@link LongTable} from each configuration's key to its number and an int per configuration are kept, so a
+ * hint or a "solvable in N" check is a lookup instead of a search.
+ *
+ * @author Luke Chelius
+ */
+public class DistanceTable<C extends EncodableConfiguration> {
+
+    /**
+     * The distance of a configuration that can't reach a solution, or that isn't in the table.
+     */
+    public static final int UNSOLVABLE = -1;
+
+    /**
+     * The key of every reachable configuration mapped to its number.
+     */
+    private final LongTable numbers;
+
+    /**
+     * The moves from each configuration to its nearest solution, by number, UNSOLVABLE if there is none.
+     */
+    private final int[] distances;
+
+    /**
+     * Builds the table for every configuration reachable from a start.
+     * @param start the starting configuration
+     */
+    public DistanceTable(C start) {
+        this(start, SolveBudget.unlimited());
+    }
+
+    /**
+     * Builds the table for every configuration reachable from a start, giving up if the forward search runs out
+     * of budget, since the table can't be used unless every reachable configuration is in it.
+     * @param start the starting configuration
+     * @param budget the limits on the forward search
+     * @throws IllegalStateException if the budget runs out before every reachable configuration is found
+     */
+    @SuppressWarnings("unchecked")
+    public DistanceTable(C start, SolveBudget budget) {
+        numbers = new LongTable();
+        long[] keys = new long[16];  // The key of each configuration by number
+        int[] edgeStart = new int[17];  // Where each configuration's moves start in targets
+        int[] targets = new int[16];  // The number of the configuration each move leads to
+        BitSet solutions = new BitSet();
+        int count = 0;
+        int edges = 0;
+
+        // Numbers the configurations in the order a BFS reaches them, then each one's moves are in order too
+        numbers.put(start.encode(), count);
+        keys[count++] = start.encode();
+        int depth = 0;
+        int levelEnd = count;  // The first number of the next level
+        for (int number = 0; number < count; number++) {
+            if (number == levelEnd) {
+                depth++;
+                levelEnd = count;
+            }
+            String reason = budget.check(number, count, depth);
+            if (reason != null) {
+                throw new IllegalStateException("Distance table not built, the search " + reason);
+            }
+            C config = (C) start.decode(keys[number]);
+            if (config.isSolution()) {
+                solutions.set(number);
+            }
+            for (C neighbor : (LinkedList<C>) config.getNeighbors()) {
+                long key = neighbor.encode();
+                if (numbers.putIfAbsent(key, count)) {
+                    if (count == keys.length) {
+                        keys = Arrays.copyOf(keys, count * 2);
+                    }
+                    keys[count++] = key;
+                }
+                if (edges == targets.length) {
+                    targets = Arrays.copyOf(targets, edges * 2);
+                }
+                targets[edges++] = (int) numbers.get(key);
+            }
+            if (number + 2 >= edgeStart.length) {
+                edgeStart = Arrays.copyOf(edgeStart, edgeStart.length * 2);
+            }
+            edgeStart[number + 1] = edges;
+        }
+
+        // Reverses the moves, sources[reverseStart[t]..reverseStart[t + 1]) are the configs that move to t
+        int[] reverseStart = new int[count + 1];
+        for (int i = 0; i < edges; i++) {
+            reverseStart[targets[i] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            reverseStart[i + 1] += reverseStart[i];
+        }
+        int[] fill = Arrays.copyOf(reverseStart, count);
+        int[] sources = new int[edges];
+        for (int source = 0; source < count; source++) {
+            for (int i = edgeStart[source]; i < edgeStart[source + 1]; i++) {
+                sources[fill[targets[i]]++] = source;
+            }
+        }
+
+        // Searches backward from every solution at once
+        distances = new int[count];
+        Arrays.fill(distances, UNSOLVABLE);
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        for (int number = solutions.nextSetBit(0); number >= 0; number = solutions.nextSetBit(number + 1)) {
+            distances[number] = 0;
+            queue[tail++] = number;
+        }
+        while (head < tail) {
+            int number = queue[head++];
+            for (int i = reverseStart[number]; i < reverseStart[number + 1]; i++) {
+                int source = sources[i];
+                if (distances[source] == UNSOLVABLE) {
+                    distances[source] = distances[number] + 1;
+                    queue[tail++] = source;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of configurations in the table.
+     * @return the number of configurations reachable from the start
+     */
+    public int size() {
+        return distances.length;
+    }
+
+    /**
+     * Returns the fewest moves from a configuration to a solution.
+     * @param config the configuration
+     * @return the number of moves, or UNSOLVABLE if no solution can be reached or the config isn't in the table
+     */
+    public int distance(C config) {
+        long number = numbers.get(config.encode());
+        return number == LongTable.EMPTY ? UNSOLVABLE : distances[(int) number];
+    }
+
+    /**
+     * Returns the first neighbor of a configuration that is one move closer to a solution.
+     * @param config the configuration
+     * @return the next configuration on a shortest path, or null if the config is a solution or can't reach one
+     */
+    @SuppressWarnings("unchecked")
+    public C next(C config) {
+        int distance = distance(config);
+        if (distance <= 0) {
+            return null;
+        }
+        for (C neighbor : (LinkedList<C>) config.getNeighbors()) {
+            if (distance(neighbor) == distance - 1) {
+                return neighbor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of bytes the table keeps after it is built.
+     * @return the size of the key table and the distances in bytes
+     */
+    public long memoryBytes() {
+        return numbers.memoryBytes() + 4L * distances.length;
+    }
+}
@@ -0,0 +1,27 @@
+package solver;
+
+/**
+ * Optional extension of {@link Configuration} for puzzles whose configurations can be packed into a single
+ * long, which lets solvers like {@link EncodedSolver} remember visited configurations without keeping the
+ * configuration objects around.
+ *
+ * @author Luke Chelius
+ */
+public interface EncodableConfiguration<E> extends Configuration<E> {
+
+    /**
+     * Packs the configuration into a non-negative long. Two configurations must have the same key exactly
+     * when they are equal.
+     * @return the key of the configuration
+     * @throws ArithmeticException if the puzzle is too big for its configurations to fit in a long
+     * @throws IllegalStateException if the configuration is not one the puzzle's encoding can represent
+     */
+    public long encode();
+
+    /**
+     * Builds the configuration of the same puzzle that a key was made from.
+     * @param key a key returned by encode
+     * @return the configuration the key represents
+     */
+    public E decode(long key);
+}
@@ -0,0 +1,117 @@
+package solver;
+
+import java.util.*;
+
+/**
+ * The same BFS as {@link Solver}, but for puzzles that implement {@link EncodableConfiguration}. The queue and
+ * the visited configurations are kept as long keys in a {@link LongQueue} and a {@link LongTable}, so each
+ * visited configuration costs a key and its parent's key instead of a configuration object and a HashMap entry.
+ * Keys are only turned back into configurations to generate their neighbors and to build the final path.
+ *
+ * @author Luke Chelius
+ */
+public class EncodedSolver<C extends EncodableConfiguration> {
+
+    /**
+     * The parent key stored for the start configuration.
+     */
+    private static final long NO_PARENT = Long.MAX_VALUE;
+
+    /**
+     * The keys of the configurations that will be checked next.
+     */
+    private LongQueue queue;
+
+    /**
+     * The key of every visited configuration, mapped to the key of the configuration it was reached from.
+     */
+    private LongTable predecessorTable;
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private int totalConfigs;
+
+    /**
+     * Creates a new EncodedSolver for a starting configuration.
+     * @param start the starting configuration
+     */
+    public EncodedSolver(C start) {
+        this.queue = new LongQueue();
+        this.predecessorTable = new LongTable();
+        this.start = start;
+        this.totalConfigs = 0;
+    }
+
+    /**
+     * Performs BFS over the keys of the configurations, in the same order as {@link Solver}.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     */
+    @SuppressWarnings("unchecked")
+    public LinkedList<C> solve(boolean print) {
+        long startKey = start.encode();
+        queue.add(startKey);
+        predecessorTable.putIfAbsent(startKey, NO_PARENT);
+        totalConfigs++;  // Adds 1 to the configuration count
+
+        // Runs until the queue is empty
+        while (!queue.isEmpty()) {
+            long key = queue.remove();
+            C config = (C) start.decode(key);
+
+            if (config.isSolution()) {
+                printConfigs(print);
+
+                LinkedList<C> solution = new LinkedList<>();  // Empty LinkedList for the solution configs
+                solution.add(config);
+
+                // Runs until it gets back to the start configuration, decoding each parent
+                for (long parent = predecessorTable.get(key); parent != NO_PARENT;
+                     parent = predecessorTable.get(parent)) {
+                    solution.add(0, (C) start.decode(parent));
+                }
+                return solution;
+            }
+
+            // Queues every neighbor whose key hasn't been seen before
+            for (C neighbor : (LinkedList<C>) config.getNeighbors()) {
+                totalConfigs++;  // Adds 1 to the total config count
+                long neighborKey = neighbor.encode();
+                if (predecessorTable.putIfAbsent(neighborKey, key)) {
+                    queue.add(neighborKey);
+                }
+            }
+        }
+
+        // Runs if no solution was found
+        printConfigs(print);
+        return null;
+    }
+
+    /**
+     * Returns the number of bytes the visited table uses for every configuration in it. An entry is two longs,
+     * but the free slots the load factor leaves make it about 28 bytes once the table has grown a few times.
+     * @return the bytes of table per visited configuration
+     */
+    public double bytesPerConfig() {
+        return (double) predecessorTable.memoryBytes() / predecessorTable.size();
+    }
+
+    /**
+     * Prints the total and unique config counts the same way {@link Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + predecessorTable.size());  // Prints the unique config count
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package solver;
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A BFS for puzzles that implement {@link EncodableConfiguration} whose state spaces don't fit on the heap.
+ * Each level of the search is a file of (key, parent key) records sorted by key. Successors are collected in a
+ * bounded in-memory buffer that is sorted and written out as a run whenever it fills, then the runs are merged,
+ * duplicates are dropped, and keys already in the sorted file of visited keys are removed to make the next
+ * level. The path is rebuilt by looking parents up in the level files with a binary search, so the heap only
+ * ever holds the buffer and one record per run being merged.
+ * <p>
+ * Within a level configurations are expanded in key order rather than the order they were found, so the path
+ * has the same length as the one {@link Solver} finds but may not be the same path, and the counts can differ
+ * slightly on the level the solution is in.
+ *
+ * @author Luke Chelius
+ */
+public class ExternalSolver<C extends EncodableConfiguration> {
+
+    /**
+     * The parent key stored for the start configuration.
+     */
+    private static final long NO_PARENT = Long.MAX_VALUE;
+
+    /**
+     * The number of bytes in a level file record, a key and a parent key.
+     */
+    private static final int RECORD_BYTES = 16;
+
+    /**
+     * The number of successors held in memory before they are written out as a sorted run.
+     */
+    private int bufferSize;
+
+    /**
+     * The directory the level, visited and run files are written to.
+     */
+    private Path directory;
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private long totalConfigs;
+
+    /**
+     * The number of configurations visited.
+     */
+    private long uniqueConfigs;
+
+    /**
+     * Creates a new ExternalSolver that writes its files to a new temporary directory.
+     * @param start the starting configuration
+     * @param bufferSize the number of successors held in memory before they are written to disk
+     */
+    public ExternalSolver(C start, int bufferSize) {
+        this.start = start;
+        this.bufferSize = bufferSize;
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+    }
+
+    /**
+     * Creates a new ExternalSolver with a buffer of about a million successors.
+     * @param start the starting configuration
+     */
+    public ExternalSolver(C start) {
+        this(start, 1 << 20);
+    }
+
+    /**
+     * Reads (key, parent) records, or bare keys, one at a time from a sorted file.
+     */
+    private static class RecordReader implements Closeable {
+
+        /**
+         * The stream the records are read from.
+         */
+        private final DataInputStream in;
+
+        /**
+         * True if each record has a parent after its key.
+         */
+        private final boolean hasParent;
+
+        /**
+         * The key of the current record.
+         */
+        private long key;
+
+        /**
+         * The parent key of the current record.
+         */
+        private long parent;
+
+        /**
+         * True once every record has been read.
+         */
+        private boolean done;
+
+        /**
+         * Opens a file and reads its first record.
+         * @param file the file to read
+         * @param hasParent true if each record has a parent after its key
+         * @throws IOException thrown if the file can't be read
+         */
+        RecordReader(Path file, boolean hasParent) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            this.hasParent = hasParent;
+            advance();
+        }
+
+        /**
+         * Moves to the next record, setting done if there isn't one.
+         * @throws IOException thrown if the file can't be read
+         */
+        void advance() throws IOException {
+            try {
+                key = in.readLong();
+                if (hasParent) {
+                    parent = in.readLong();
+                }
+            }
+            catch (EOFException eof) {
+                done = true;
+            }
+        }
+
+        /**
+         * Closes the file.
+         * @throws IOException thrown if the file can't be closed
+         */
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Performs BFS one level at a time with the levels stored on disk. The temporary files are deleted before
+     * returning.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     * @throws UncheckedIOException thrown if the files can't be written or read
+     */
+    public LinkedList<C> solve(boolean print) {
+        try {
+            directory = Files.createTempDirectory("bfs");
+            try {
+                return search(print);
+            }
+            finally {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    for (Path file : files) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+        catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Runs the search, see solve.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return the solution path, or null if there is none
+     * @throws IOException thrown if the files can't be written or read
+     */
+    @SuppressWarnings("unchecked")
+    private LinkedList<C> search(boolean print) throws IOException {
+        long startKey = start.encode();
+        try (DataOutputStream out = open(level(0))) {
+            out.writeLong(startKey);
+            out.writeLong(NO_PARENT);
+        }
+        try (DataOutputStream out = open(visited(0))) {
+            out.writeLong(startKey);
+        }
+        totalConfigs++;  // Adds 1 to the configuration count
+        uniqueConfigs++;
+
+        LongTable buffer = new LongTable(bufferSize);
+        // Runs until a level has no configurations in it
+        for (int depth = 0; Files.size(level(depth)) > 0; depth++) {
+            List<Path> runs = new ArrayList<>();
+            try (RecordReader reader = new RecordReader(level(depth), true)) {
+                for (; !reader.done; reader.advance()) {
+                    C config = (C) start.decode(reader.key);
+                    if (config.isSolution()) {
+                        printConfigs(print);
+                        return buildPath(config, reader.parent, depth);
+                    }
+                    for (C neighbor : (LinkedList<C>) config.getNeighbors()) {
+                        totalConfigs++;  // Adds 1 to the total config count
+                        buffer.putIfAbsent(neighbor.encode(), reader.key);
+                        if (buffer.size() >= bufferSize) {
+                            runs.add(spill(buffer, runs.size()));
+                        }
+                    }
+                }
+            }
+            if (buffer.size() > 0) {
+                runs.add(spill(buffer, runs.size()));
+            }
+            merge(runs, depth);
+        }
+
+        // Runs if no solution was found
+        printConfigs(print);
+        return null;
+    }
+
+    /**
+     * Writes the buffer to a run file sorted by key and empties it.
+     * @param buffer the successors found so far, mapped to their parents
+     * @param number the number of the run in this level
+     * @return the run file
+     * @throws IOException thrown if the file can't be written
+     */
+    private Path spill(LongTable buffer, int number) throws IOException {
+        Path run = directory.resolve("run-" + number);
+        try (DataOutputStream out = open(run)) {
+            for (long key : buffer.sortedKeys()) {
+                out.writeLong(key);
+                out.writeLong(buffer.get(key));
+            }
+        }
+        buffer.clear();
+        return run;
+    }
+
+    /**
+     * Merges the sorted runs of a level's successors, keeps the first record of each key that isn't in the
+     * visited file, and writes those as the next level along with the new visited file.
+     * @param runs the run files of the successors
+     * @param depth the depth of the level that was expanded
+     * @throws IOException thrown if the files can't be written or read
+     */
+    private void merge(List<Path> runs, int depth) throws IOException {
+        List<RecordReader> readers = new ArrayList<>();
+        PriorityQueue<RecordReader> heads = new PriorityQueue<>(Comparator.comparingLong(r -> r.key));
+        try (RecordReader visited = new RecordReader(visited(depth), false);
+             DataOutputStream nextLevel = open(level(depth + 1));
+             DataOutputStream nextVisited = open(visited(depth + 1))) {
+            for (Path run : runs) {
+                RecordReader reader = new RecordReader(run, true);
+                readers.add(reader);
+                if (!reader.done) {
+                    heads.add(reader);
+                }
+            }
+
+            long last = -1;
+            while (!heads.isEmpty()) {
+                RecordReader reader = heads.remove();
+                long key = reader.key;
+                long parent = reader.parent;
+                reader.advance();
+                if (!reader.done) {
+                    heads.add(reader);
+                }
+                if (key == last) {
+                    continue;  // Another run already had this key
+                }
+                last = key;
+
+                // Copies the visited keys that come before this one into the new visited file
+                while (!visited.done && visited.key < key) {
+                    nextVisited.writeLong(visited.key);
+                    visited.advance();
+                }
+                if (!visited.done && visited.key == key) {
+                    continue;  // Already visited in an earlier level
+                }
+                nextLevel.writeLong(key);
+                nextLevel.writeLong(parent);
+                nextVisited.writeLong(key);
+                uniqueConfigs++;
+            }
+            for (; !visited.done; visited.advance()) {
+                nextVisited.writeLong(visited.key);
+            }
+        }
+        finally {
+            for (RecordReader reader : readers) {
+                reader.close();
+            }
+        }
+
+        for (Path run : runs) {
+            Files.delete(run);
+        }
+        Files.delete(visited(depth));
+    }
+
+    /**
+     * Rebuilds the path by finding each parent's record in the level above it with a binary search.
+     * @param goal the solution configuration
+     * @param parent the key of the solution's parent
+     * @param depth the level the solution is in
+     * @return the path from the start to the solution
+     * @throws IOException thrown if the level files can't be read
+     */
+    @SuppressWarnings("unchecked")
+    private LinkedList<C> buildPath(C goal, long parent, int depth) throws IOException {
+        LinkedList<C> solution = new LinkedList<>();
+        solution.add(goal);
+        for (int level = depth - 1; level >= 0; level--) {
+            solution.add(0, (C) start.decode(parent));
+            parent = findParent(level(level), parent);
+        }
+        return solution;
+    }
+
+    /**
+     * Finds the parent of a key in a level file, whose records are sorted by key.
+     * @param file the level file
+     * @param key the key to find
+     * @return the parent of the key
+     * @throws IOException thrown if the file can't be read or doesn't have the key
+     */
+    private static long findParent(Path file, long key) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            long low = 0;
+            long high = in.length() / RECORD_BYTES - 1;
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                in.seek(mid * RECORD_BYTES);
+                long found = in.readLong();
+                if (found == key) {
+                    return in.readLong();
+                }
+                else if (found < key) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid - 1;
+                }
+            }
+        }
+        throw new IOException("Key " + key + " is missing from " + file);
+    }
+
+    /**
+     * Opens a file in the temporary directory for buffered writing.
+     * @param file the file to write
+     * @return the stream to write to
+     * @throws IOException thrown if the file can't be created
+     */
+    private static DataOutputStream open(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    }
+
+    /**
+     * Returns the file that holds a level of the search.
+     * @param depth the depth of the level
+     * @return the level file
+     */
+    private Path level(int depth) {
+        return directory.resolve("level-" + depth);
+    }
+
+    /**
+     * Returns the file that holds every key visited up to a level.
+     * @param depth the depth of the level
+     * @return the visited file
+     */
+    private Path visited(int depth) {
+        return directory.resolve("visited-" + depth);
+    }
+
+    /**
+     * Prints the total and unique config counts the same way {@link Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + uniqueConfigs);  // Prints the unique config count
+        }
+    }
+}
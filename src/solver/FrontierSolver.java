@@ -0,0 +1,276 @@
+package solver;
+
+import java.util.*;
+
+/**
+ * A BFS that keeps no predecessors at all, only the level before the one being expanded, that level and the next
+ * one, so the memory it needs grows with the widest level rather than with every configuration it visits. A
+ * neighbor is a duplicate if it is in one of those three levels, which finds every duplicate when every move can
+ * be undone, since then a neighbor can't be more than one level away.
+ * <p>
+ * Without predecessors the path is rebuilt by searching again. Once the first search finds a solution d moves
+ * away, a search from the start to that solution tags every configuration of the middle level with itself and
+ * every configuration after it with its tagged ancestor, so the solution ends up tagged with a configuration
+ * d / 2 moves along the path. The path to that midpoint and the path from it to the solution are rebuilt the same
+ * way, until each piece is a single move. These searches know how deep their target is, so they always stop.
+ * <p>
+ * When some moves can't be undone, a configuration found many levels ago can be found again and searched a
+ * second time. The solution is still found at the right depth, and if moves that can't be undone never lead back
+ * to an earlier configuration, like tipping a crate in Tip Over, the search still ends. A puzzle that can loop
+ * through such moves and has no solution can search forever, so give it a budget.
+ *
+ * @author Luke Chelius
+ */
+public class FrontierSolver<C extends Configuration> {
+
+    /**
+     * A configuration in a level, and the configuration of the middle level it was reached from, null before the
+     * middle level or if there is none.
+     */
+    private record Visit<C>(C config, C midpoint) {}
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * The measurements of the first search, with the peak counting every search.
+     */
+    private SolverStats stats;
+
+    /**
+     * The total number of configurations found by every search, including duplicates.
+     */
+    private long totalConfigs;
+
+    /**
+     * The number of configurations whose neighbors were generated by every search.
+     */
+    private long expanded;
+
+    /**
+     * The number of configurations put in the levels of the first search.
+     */
+    private long uniqueConfigs;
+
+    /**
+     * The most configurations the three levels held at once in any search.
+     */
+    private long peakLevels;
+
+    /**
+     * The number of searches run, the first one included.
+     */
+    private int searches;
+
+    /**
+     * Creates a new FrontierSolver.
+     * @param start the starting configuration
+     */
+    public FrontierSolver(C start) {
+        this.start = start;
+        this.stats = new SolverStats();
+    }
+
+    /**
+     * Performs BFS from the start, keeping only three levels, then rebuilds the path.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     */
+    public LinkedList<C> solve(boolean print) {
+        return solve(print, SolveBudget.unlimited()).getPath();
+    }
+
+    /**
+     * Performs the same search as solve(boolean), but stops early if the budget runs out. The budget only limits
+     * the first search, since the searches that rebuild the path always end.
+     * @param budget the limits on the search
+     * @return the path, or why there is none
+     */
+    public SolveResult<C> solve(SolveBudget budget) {
+        return solve(false, budget);
+    }
+
+    /**
+     * Runs the first search and rebuilds the path, see solve(boolean).
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @param budget the limits on the first search
+     * @return the path, or why there is none
+     */
+    private SolveResult<C> solve(boolean print, SolveBudget budget) {
+        stats.begin();
+        totalConfigs = 1;  // Adds 1 to the configuration count
+        String[] reason = new String[1];
+        int[] depth = new int[1];
+        Visit<C> goal = search(start, null, -1, -1, budget, reason, depth);
+        if (goal == null) {
+            printConfigs(print);
+            stats.end(totalConfigs, uniqueConfigs, peakLevels, null);
+            return reason[0] == null ? new SolveResult<>(SolveResult.Status.UNSOLVABLE, null, null, stats)
+                    : new SolveResult<>(SolveResult.Status.BUDGET_EXHAUSTED, null, reason[0], stats);
+        }
+
+        LinkedList<C> solution = new LinkedList<>();  // Empty LinkedList for the solution configs
+        solution.add(start);
+        rebuild(start, goal.config(), depth[0], solution);
+        printConfigs(print);
+        stats.end(totalConfigs, uniqueConfigs, peakLevels, solution);
+        return new SolveResult<>(SolveResult.Status.SOLVED, solution, null, stats);
+    }
+
+    /**
+     * Adds the configurations after from on a shortest path from one configuration to another, searching for the
+     * midpoint and rebuilding each half in turn.
+     * @param from the configuration the path starts at, already in the solution
+     * @param to the configuration the path ends at
+     * @param moves the number of moves between them
+     * @param solution the path so far, which the configurations are added to the end of
+     */
+    private void rebuild(C from, C to, int moves, LinkedList<C> solution) {
+        if (moves == 0) {
+            return;
+        }
+        if (moves == 1) {
+            solution.add(to);
+            return;
+        }
+        int middle = moves / 2;
+        C midpoint = search(from, to, moves, middle, null, null, null).midpoint();
+        rebuild(from, midpoint, middle, solution);
+        rebuild(midpoint, to, moves - middle, solution);
+    }
+
+    /**
+     * Searches level by level from a configuration, keeping only three levels.
+     * @param from the configuration to search from
+     * @param target the configuration to find, or null to find any solution, by canonical form
+     * @param moves the depth target is known to be at, or -1 if unknown
+     * @param middle the depth whose configurations tag the ones after them, or -1 for none
+     * @param budget the limits on the search, or null for none
+     * @param reason where why the budget ran out is stored, or null when there is no budget
+     * @param depth where the depth of what was found is stored, or null if it isn't needed
+     * @return the visit of what was found, or null if nothing was
+     */
+    @SuppressWarnings("unchecked")
+    private Visit<C> search(C from, C target, int moves, int middle, SolveBudget budget, String[] reason,
+                            int[] depth) {
+        boolean first = target == null;
+        searches++;
+        if (first && from.isSolution()) {
+            uniqueConfigs++;
+            peakLevels = Math.max(peakLevels, 1);
+            depth[0] = 0;
+            return new Visit<>(from, null);
+        }
+        // Rebuilding the path needs the exact configurations, so only the first search goes by canonical form
+        HashMap<Object, Visit<C>> previous = new HashMap<>();
+        HashMap<Object, Visit<C>> current = new HashMap<>();
+        HashMap<Object, Visit<C>> next = new HashMap<>();
+        current.put(first ? from.canonical() : from, new Visit<>(from, null));
+        if (first) {
+            uniqueConfigs++;
+        }
+
+        for (int level = 0; !current.isEmpty() && level != moves; level++) {
+            if (first) {
+                stats.startLevel(current.size());
+            }
+            for (Visit<C> visit : current.values()) {
+                if (budget != null) {
+                    reason[0] = budget.check(expanded, uniqueConfigs, level);
+                    if (reason[0] != null) {
+                        return null;
+                    }
+                }
+                if (first) {
+                    stats.expanded();
+                }
+                expanded++;
+                for (Object o : visit.config().getNeighbors()) {
+                    C neighbor = (C) o;
+                    totalConfigs++;  // Adds 1 to the total config count
+                    Object key = first ? neighbor.canonical() : neighbor;
+                    boolean duplicate = previous.containsKey(key) || current.containsKey(key)
+                            || next.containsKey(key);
+                    if (first) {
+                        stats.generated(duplicate);
+                    }
+                    if (duplicate) {
+                        continue;
+                    }
+                    Visit<C> reached = new Visit<>(neighbor, level + 1 == middle ? neighbor : visit.midpoint());
+                    if (first ? neighbor.isSolution() : neighbor.equals(target)) {
+                        peakLevels = Math.max(peakLevels, (long) previous.size() + current.size() + next.size());
+                        if (first) {
+                            uniqueConfigs++;
+                            depth[0] = level + 1;
+                        }
+                        return reached;
+                    }
+                    next.put(key, reached);
+                    if (first) {
+                        uniqueConfigs++;
+                    }
+                }
+            }
+            peakLevels = Math.max(peakLevels, (long) previous.size() + current.size() + next.size());
+
+            // The oldest level is dropped and its map reused for the level after next
+            HashMap<Object, Visit<C>> oldest = previous;
+            previous = current;
+            current = next;
+            next = oldest;
+            next.clear();
+        }
+        if (!first) {
+            throw new IllegalStateException("Target not found " + moves + " moves from " + from);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the measurements of the first search of the last solve, with the total and expanded counts and the
+     * peak number of configurations held covering every search.
+     * @return the stats of the last solve
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns the number of configurations whose neighbors were generated, over every search of the last solve.
+     * @return the number of expanded configurations
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Returns the most configurations the three levels held at once in any search of the last solve.
+     * @return the peak number of configurations held
+     */
+    public long getPeakLevels() {
+        return peakLevels;
+    }
+
+    /**
+     * Returns the number of searches the last solve ran, the first one and those that rebuilt the path.
+     * @return the number of searches
+     */
+    public int getSearches() {
+        return searches;
+    }
+
+    /**
+     * Prints the total and unique config counts the same way {@link Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + uniqueConfigs);  // Prints the unique config count
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package solver;
+
+/**
+ * Optional extension of {@link Configuration} for puzzles that can estimate how far a configuration is from a
+ * solution, which lets {@link AStarSolver} look at the most promising configurations first.
+ *
+ * @author Luke Chelius
+ */
+public interface HeuristicConfiguration<E> extends Configuration<E> {
+
+    /**
+     * The estimate for a configuration that can never reach a solution. Configurations with this estimate
+     * are not searched any further.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+
+    /**
+     * Returns an estimate of the number of moves left to reach a solution. The estimate must never be more
+     * than the real number of moves, and must not drop by more than 1 from a configuration to any of its
+     * neighbors, or the path found may not be the shortest.
+     * @return a lower bound on the moves left, 0 for a solution, or UNREACHABLE if no solution can be reached
+     */
+    public int heuristic();
+}
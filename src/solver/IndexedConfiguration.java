@@ -0,0 +1,32 @@
+package solver;
+
+/**
+ * Optional extension of {@link Configuration} for puzzles with a bounded number of configurations that can be
+ * numbered from 0 with no gaps, which lets {@link IndexedSolver} use arrays indexed by configuration instead
+ * of hashing.
+ *
+ * @author Luke Chelius
+ */
+public interface IndexedConfiguration<E> extends Configuration<E> {
+
+    /**
+     * Returns the number of this configuration, from 0 up to stateSpaceSize() - 1. Two configurations must
+     * have the same index exactly when they are equal.
+     * @return the index of the configuration
+     */
+    public int index();
+
+    /**
+     * Builds the configuration of the same puzzle with a given index.
+     * @param index a number from 0 up to stateSpaceSize() - 1
+     * @return the configuration with that index
+     */
+    public E fromIndex(int index);
+
+    /**
+     * Returns the number of configurations the puzzle has, reachable or not.
+     * @return the size of the state space
+     * @throws ArithmeticException if there are more configurations than fit in an int
+     */
+    public int stateSpaceSize();
+}
@@ -0,0 +1,219 @@
+package solver;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * The same BFS as {@link Solver}, but for puzzles that implement {@link IndexedConfiguration}. Visited
+ * configurations are a BitSet and parents are an int[] indexed by configuration, and the queue is an int[]
+ * since each configuration is queued at most once. Nothing is hashed and no configuration objects are kept, so
+ * the solver uses a fixed 8 bytes and 1 bit per configuration in the state space, allocated up front.
+ *
+ * @author Luke Chelius
+ */
+public class IndexedSolver<C extends IndexedConfiguration> {
+
+    /**
+     * The parent stored for the start configuration.
+     */
+    private static final int NO_PARENT = -1;
+
+    /**
+     * The indexes of the configurations in the order they were found. Everything from head on is still queued.
+     */
+    private int[] queue;
+
+    /**
+     * Which configurations have been visited, by the index of their canonical form.
+     */
+    private BitSet visited;
+
+    /**
+     * The index of the configuration each visited configuration was reached from, by the index of the visited
+     * configuration's canonical form.
+     */
+    private int[] parent;
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private long totalConfigs;
+
+    /**
+     * The number of configurations visited.
+     */
+    private int uniqueConfigs;
+
+    /**
+     * The measurements of the last solve.
+     */
+    private SolverStats stats;
+
+    /**
+     * The index of the configuration whose neighbors are being visited.
+     */
+    private int expanding;
+
+    /**
+     * The end of the queue, where the next new configuration goes.
+     */
+    private int tail;
+
+    /**
+     * Checks each neighbor handed over by forEachNeighbor, made once so expanding a config allocates nothing.
+     */
+    private final Consumer<C> visitor = this::visit;
+
+    /**
+     * Creates a new IndexedSolver and allocates its arrays for the whole state space of the puzzle.
+     * @param start the starting configuration
+     * @throws IllegalArgumentException if the start has no index in the state space
+     */
+    public IndexedSolver(C start) {
+        int size = start.stateSpaceSize();
+        if (start.index() < 0 || start.index() >= size) {
+            throw new IllegalArgumentException("Start index " + start.index() + " is outside the state space of "
+                    + size + " configurations");
+        }
+        this.queue = new int[size];
+        this.visited = new BitSet(size);
+        this.parent = new int[size];
+        this.start = start;
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+        this.stats = new SolverStats();
+    }
+
+    /**
+     * Returns the number of bytes the solver allocates for a puzzle with a given state space size.
+     * @param stateSpaceSize the number of configurations in the puzzle
+     * @return the bytes used by the queue, visited set and parents
+     */
+    public static long memoryBytes(int stateSpaceSize) {
+        return 8L * stateSpaceSize + (stateSpaceSize + 63) / 64 * 8L;
+    }
+
+    /**
+     * Checks if the start has an index in the state space and the arrays for the whole state space fit in half
+     * of the largest heap the JVM may use, leaving the other half for everything else. A start outside the state
+     * space, like a clock started on an hour the clock doesn't have, has to be solved some other way.
+     * @param start the starting configuration of the puzzle
+     * @return true if an IndexedSolver can be used for the puzzle, false otherwise
+     */
+    public static boolean fits(IndexedConfiguration<?> start) {
+        try {
+            int size = start.stateSpaceSize();
+            return start.index() >= 0 && start.index() < size
+                    && memoryBytes(size) <= Runtime.getRuntime().maxMemory() / 2;
+        }
+        catch (ArithmeticException ae) {
+            return false;
+        }
+    }
+
+    /**
+     * Performs BFS over the indexes of the configurations, in the same order as {@link Solver}.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     */
+    @SuppressWarnings("unchecked")
+    public LinkedList<C> solve(boolean print) {
+        stats.begin();
+        int head = 0;
+        tail = 0;
+        int startIndex = start.index();
+        queue[tail++] = startIndex;
+        visited.set(canonicalIndex(start));
+        parent[canonicalIndex(start)] = NO_PARENT;
+        uniqueConfigs++;
+        totalConfigs++;  // Adds 1 to the configuration count
+
+        int levelEnd = 0;  // The end of the current level in the queue
+
+        // Runs until the queue is empty
+        while (head < tail) {
+            if (head == levelEnd) {
+                levelEnd = tail;
+                stats.startLevel(tail - head);
+            }
+            int index = queue[head++];
+            C config = index == startIndex ? start : (C) start.fromIndex(index);
+
+            if (config.isSolution()) {
+                printConfigs(print);
+
+                LinkedList<C> solution = new LinkedList<>();  // Empty LinkedList for the solution configs
+                solution.add(config);
+
+                // Runs until it gets back to the start configuration, rebuilding each parent from its index
+                for (int previous = parent[canonicalIndex(config)]; previous != NO_PARENT;
+                     previous = parent[canonicalIndex(solution.getFirst())]) {
+                    solution.add(0, (C) start.fromIndex(previous));
+                }
+                stats.end(totalConfigs, uniqueConfigs, uniqueConfigs, solution);
+                return solution;
+            }
+
+            // Queues every neighbor that hasn't been visited
+            stats.expanded();
+            expanding = index;
+            config.forEachNeighbor(visitor);
+        }
+
+        // Runs if no solution was found
+        printConfigs(print);
+        stats.end(totalConfigs, uniqueConfigs, uniqueConfigs, null);
+        return null;
+    }
+
+    /**
+     * Checks a neighbor of the config being expanded, queueing it if it hasn't been visited.
+     * @param neighbor the neighbor
+     */
+    private void visit(C neighbor) {
+        totalConfigs++;  // Adds 1 to the total config count
+        int canonical = canonicalIndex(neighbor);
+        boolean seen = visited.get(canonical);
+        stats.generated(seen);
+        if (!seen) {
+            visited.set(canonical);
+            parent[canonical] = expanding;
+            queue[tail++] = neighbor.index();
+            uniqueConfigs++;
+        }
+    }
+
+    /**
+     * Returns the index of a configuration's canonical form, which duplicates are found by.
+     * @param config the configuration
+     * @return the index of its canonical form
+     */
+    private int canonicalIndex(C config) {
+        return ((IndexedConfiguration<?>) config.canonical()).index();
+    }
+
+    /**
+     * Returns the measurements of the last solve, per level and in total.
+     * @return the stats of the last solve
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Prints the total and unique config counts the same way {@link Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + uniqueConfigs);  // Prints the unique config count
+        }
+    }
+}
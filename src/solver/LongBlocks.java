@@ -0,0 +1,228 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * An unchangeable sorted set of non-negative longs packed as the differences between neighboring values, each
+ * written in as few bytes as it needs, seven bits to a byte. The values are split into blocks of BLOCK_SIZE that
+ * each start from a full value, so any value can be found by index or looked up without decoding more than one
+ * block.
+ *
+ * @author Luke Chelius
+ */
+public class LongBlocks {
+
+    /**
+     * The number of values in each block.
+     */
+    public static final int BLOCK_SIZE = 64;
+
+    /**
+     * The number of values.
+     */
+    private final int size;
+
+    /**
+     * The first value of each block.
+     */
+    private final long[] firsts;
+
+    /**
+     * The index in bytes of the differences after the first value of each block.
+     */
+    private final int[] offsets;
+
+    /**
+     * The differences between each value and the one before it in its block.
+     */
+    private final byte[] bytes;
+
+    /**
+     * Packs the first size values of a sorted array.
+     * @param values the values, in strictly increasing order and none negative
+     * @param size the number of values to pack
+     */
+    public LongBlocks(long[] values, int size) {
+        this.size = size;
+        int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.firsts = new long[blocks];
+        this.offsets = new int[blocks + 1];
+        byte[] packed = new byte[Math.max(16, size * 2)];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            if (i % BLOCK_SIZE == 0) {
+                firsts[i / BLOCK_SIZE] = values[i];
+                offsets[i / BLOCK_SIZE] = length;
+                continue;
+            }
+            if (length + 10 > packed.length) {
+                packed = Arrays.copyOf(packed, packed.length * 2);
+            }
+            // Writes the difference seven bits at a time, lowest first, with the top bit set on all but the last
+            long delta = values[i] - values[i - 1];
+            while (delta >= 0x80) {
+                packed[length++] = (byte) (delta | 0x80);
+                delta >>>= 7;
+            }
+            packed[length++] = (byte) delta;
+        }
+        offsets[blocks] = length;
+        this.bytes = Arrays.copyOf(packed, length);
+    }
+
+    /**
+     * Returns the number of values.
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value at an index, decoding its block up to it.
+     * @param index the index, between 0 and size - 1
+     * @return the value
+     */
+    public long get(int index) {
+        Cursor cursor = new Cursor();
+        cursor.seekBlock(index / BLOCK_SIZE);
+        long value = cursor.next();
+        for (int i = index % BLOCK_SIZE; i > 0; i--) {
+            value = cursor.next();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of bytes the arrays use.
+     * @return the size in bytes
+     */
+    public long memoryBytes() {
+        return bytes.length + 8L * firsts.length + 4L * offsets.length;
+    }
+
+    /**
+     * Returns a cursor at the first value.
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Reads the values in increasing order.
+     */
+    public class Cursor {
+
+        /**
+         * The index of the next value.
+         */
+        private int index;
+
+        /**
+         * The index in bytes of the next difference.
+         */
+        private int position;
+
+        /**
+         * The last value read.
+         */
+        private long value;
+
+        /**
+         * The number of bytes read, counting 8 for the first value of each block.
+         */
+        private long bytesRead;
+
+        /**
+         * Moves the cursor to the start of a block.
+         * @param block the index of the block
+         */
+        private void seekBlock(int block) {
+            index = block * BLOCK_SIZE;
+            position = offsets[block];
+        }
+
+        /**
+         * Checks if there are values left to read.
+         * @return true if next can be called
+         */
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        /**
+         * Reads the next value.
+         * @return the value
+         */
+        public long next() {
+            if (index % BLOCK_SIZE == 0) {
+                value = firsts[index / BLOCK_SIZE];
+                bytesRead += 8;
+            }
+            else {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += delta;
+                bytesRead += shift / 7;
+            }
+            index++;
+            return value;
+        }
+
+        /**
+         * Checks if a value is in the set, moving the cursor past every value smaller than it. Values have to be
+         * asked for in increasing order, and whole blocks that end before the value are skipped without being
+         * decoded by searching the first values of the blocks.
+         * @param key the value to look for, no smaller than the last one asked for
+         * @return true if the value is in the set
+         */
+        public boolean contains(long key) {
+            if (index > 0 && value >= key) {
+                return value == key;
+            }
+            // Gallops ahead over the first values of the blocks, then binary searches for the last block that
+            // starts at or before the key
+            int block = index == 0 ? 0 : (index - 1) / BLOCK_SIZE;
+            if (block + 1 < firsts.length && firsts[block + 1] <= key) {
+                int low = block + 1;
+                int high = low + 1;
+                for (int step = 2; high < firsts.length && firsts[high] <= key; step *= 2) {
+                    low = high;
+                    high = low + step;
+                }
+                high = Math.min(high, firsts.length);
+                while (high - low > 1) {
+                    int middle = (low + high) >>> 1;
+                    if (firsts[middle] <= key) {
+                        low = middle;
+                    }
+                    else {
+                        high = middle;
+                    }
+                }
+                seekBlock(low);
+            }
+            while (hasNext()) {
+                if (next() >= key) {
+                    return value == key;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns the number of bytes this cursor has read, counting 8 for the first value of each block.
+         * @return the bytes read
+         */
+        public long getBytesRead() {
+            return bytesRead;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package solver;
+
+/**
+ * A first in, first out queue of longs stored in a circular array that doubles in size when it fills up.
+ *
+ * @author Luke Chelius
+ */
+public class LongQueue {
+
+    /**
+     * The circular array holding the queue.
+     */
+    private long[] elements;
+
+    /**
+     * The index of the first element.
+     */
+    private int head;
+
+    /**
+     * The number of elements in the queue.
+     */
+    private int size;
+
+    /**
+     * Creates an empty queue.
+     */
+    public LongQueue() {
+        this.elements = new long[16];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Adds a value to the back of the queue.
+     * @param value the value to add
+     */
+    public void add(long value) {
+        if (size == elements.length) {
+            long[] bigger = new long[elements.length * 2];
+            for (int i = 0; i < size; i++) {
+                bigger[i] = elements[(head + i) % elements.length];
+            }
+            elements = bigger;
+            head = 0;
+        }
+        elements[(head + size) % elements.length] = value;
+        size++;
+    }
+
+    /**
+     * Removes the value at the front of the queue.
+     * @return the value that was at the front
+     */
+    public long remove() {
+        long value = elements[head];
+        head = (head + 1) % elements.length;
+        size--;
+        return value;
+    }
+
+    /**
+     * Checks if the queue has no values in it.
+     * @return true if the queue is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of values in the queue.
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,190 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * A hash table from non-negative long keys to long values that stores everything in two flat arrays using
+ * open addressing with linear probing, so an entry costs two longs instead of a HashMap entry and two boxed
+ * objects.
+ *
+ * @author Luke Chelius
+ */
+public class LongTable {
+
+    /**
+     * Marks an empty slot in the keys array, and is returned by get for a missing key.
+     */
+    public static final long EMPTY = -1;
+
+    /**
+     * The largest fraction of slots that are used before the table grows.
+     */
+    private static final double LOAD_FACTOR = 0.75;
+
+    /**
+     * The keys, EMPTY where a slot is unused.
+     */
+    private long[] keys;
+
+    /**
+     * The value stored with the key in the same slot.
+     */
+    private long[] values;
+
+    /**
+     * The number of keys in the table.
+     */
+    private int size;
+
+    /**
+     * Creates a table with room for at least the expected number of keys before it needs to grow.
+     * @param expected the number of keys expected
+     */
+    public LongTable(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        this.size = 0;
+    }
+
+    /**
+     * Creates a table with a small default capacity.
+     */
+    public LongTable() {
+        this(16);
+    }
+
+    /**
+     * Spreads the bits of a key so that keys that differ only in their high bits use different slots.
+     * @param key the key to hash
+     * @return the mixed hash of the key
+     */
+    public static long mix(long key) {
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return key ^ (key >>> 31);
+    }
+
+    /**
+     * Finds the slot that holds a key, or the empty slot where it would be added.
+     * @param key the key to look for
+     * @return the index of the slot
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int index = (int) mix(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Adds a key with a value if the key is not in the table yet.
+     * @param key the non-negative key to add
+     * @param value the value to store with it
+     * @return true if the key was added, false if it was already in the table
+     */
+    public boolean putIfAbsent(long key, long value) {
+        int index = slot(key);
+        if (keys[index] == key) {
+            return false;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Adds a key with a value, replacing the value if the key is already in the table.
+     * @param key the non-negative key to add
+     * @param value the value to store with it
+     */
+    public void put(long key, long value) {
+        if (!putIfAbsent(key, value)) {
+            values[slot(key)] = value;
+        }
+    }
+
+    /**
+     * Returns the value stored with a key.
+     * @param key the key to look up
+     * @return the value, or EMPTY if the key is not in the table
+     */
+    public long get(long key) {
+        int index = slot(key);
+        return keys[index] == key ? values[index] : EMPTY;
+    }
+
+    /**
+     * Checks if a key is in the table.
+     * @param key the key to look for
+     * @return true if the key is in the table, false otherwise
+     */
+    public boolean containsKey(long key) {
+        return keys[slot(key)] == key;
+    }
+
+    /**
+     * Returns the number of keys in the table.
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns every key in the table in increasing order.
+     * @return a sorted array of the keys
+     */
+    public long[] sortedKeys() {
+        long[] sorted = new long[size];
+        int count = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                sorted[count++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Removes every key from the table, keeping its current capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of bytes used by the two arrays of the table.
+     * @return the size of the table in bytes
+     */
+    public long memoryBytes() {
+        return 16L * keys.length;
+    }
+
+    /**
+     * Doubles the number of slots and puts every key back in.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = slot(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
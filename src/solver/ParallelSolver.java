@@ -0,0 +1,244 @@
+package solver;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A level-synchronous version of the BFS in {@link Solver}. Only generating the neighbors of each level runs in
+ * parallel, across a ForkJoinPool. Checking them against the visited map and merging them into the next frontier
+ * is done by the calling thread, in the same order a single queue would have found them, so the path returned is
+ * the same one {@link Solver} returns. The speedup is therefore limited by how much of the time goes to generating
+ * neighbors rather than to looking them up.
+ * <p>
+ * The pool is kept for the life of the solver, so solve can be called again. Call shutdown once the solver is no
+ * longer needed to stop its threads.
+ *
+ * @author Luke Chelius
+ */
+public class ParallelSolver<C extends Configuration> {
+
+    /**
+     * The smallest slice of a frontier that is split into two tasks.
+     */
+    private static final int THRESHOLD = 64;
+
+    /**
+     * The pool the frontier expansions run in.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * HashMap of the previously visited nodes to prevent duplicates.
+     */
+    private HashMap<C, C> predecessorMap;
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private int totalConfigs;
+
+    /**
+     * The number of configurations whose neighbors were generated.
+     */
+    private int expanded;
+
+    /**
+     * How long the last solve took in nanoseconds.
+     */
+    private long elapsed;
+
+    /**
+     * Creates a new ParallelSolver that expands each level with the given number of threads.
+     * @param start the starting configuration
+     * @param threads the number of worker threads in the pool
+     */
+    public ParallelSolver(C start, int threads) {
+        this.pool = new ForkJoinPool(threads);
+        this.predecessorMap = new HashMap<>();
+        this.start = start;
+        this.totalConfigs = 0;
+        this.expanded = 0;
+    }
+
+    /**
+     * Expands one slice of a frontier, storing the neighbors of frontier[i] in neighbors[i].
+     */
+    @SuppressWarnings("serial")
+    private static class ExpandTask<C extends Configuration> extends RecursiveAction {
+
+        /**
+         * The level being expanded.
+         */
+        private final List<C> frontier;
+
+        /**
+         * Where the neighbors of each frontier config are stored, indexed the same as the frontier.
+         */
+        private final List<LinkedList<C>> neighbors;
+
+        /**
+         * The first index of the slice.
+         */
+        private final int low;
+
+        /**
+         * One past the last index of the slice.
+         */
+        private final int high;
+
+        /**
+         * Creates a task that expands frontier[low, high).
+         * @param frontier the level being expanded
+         * @param neighbors where to store the neighbors
+         * @param low the first index of the slice
+         * @param high one past the last index of the slice
+         */
+        ExpandTask(List<C> frontier, List<LinkedList<C>> neighbors, int low, int high) {
+            this.frontier = frontier;
+            this.neighbors = neighbors;
+            this.low = low;
+            this.high = high;
+        }
+
+        /**
+         * Splits the slice in half until it is small enough, then generates the neighbors directly.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if (high - low <= THRESHOLD) {
+                for (int i = low; i < high; i++) {
+                    neighbors.set(i, frontier.get(i).getNeighbors());
+                }
+            }
+            else {
+                int mid = (low + high) >>> 1;
+                invokeAll(new ExpandTask<>(frontier, neighbors, low, mid),
+                        new ExpandTask<>(frontier, neighbors, mid, high));
+            }
+        }
+    }
+
+    /**
+     * Performs BFS one level at a time. Every config in a level is expanded in parallel, then the neighbors are
+     * merged into the predecessorMap in frontier order so that the parents chosen match the sequential Solver.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     */
+    public LinkedList<C> solve(boolean print) {
+        long begin = System.nanoTime();
+        predecessorMap.clear();
+        totalConfigs = 1;  // Adds 1 to the configuration count
+        expanded = 0;
+        predecessorMap.put(start, null);
+
+        List<C> frontier = new ArrayList<>();
+        frontier.add(start);
+
+        // Runs until there are no new configurations left
+        while (!frontier.isEmpty()) {
+            // Finds the first solution in the level, it is the one a queue would have removed first
+            int goal = -1;
+            for (int i = 0; i < frontier.size() && goal < 0; i++) {
+                if (frontier.get(i).isSolution()) {
+                    goal = i;
+                }
+            }
+
+            // Only the configs ahead of the solution would have been expanded by the queue
+            int limit = goal < 0 ? frontier.size() : goal;
+            List<C> next = expand(frontier, limit);
+
+            if (goal >= 0) {
+                elapsed = System.nanoTime() - begin;
+                printConfigs(print);
+
+                C config = frontier.get(goal);
+                LinkedList<C> solution = new LinkedList<>();  // Empty LinkedList for the solution configs
+
+                // Runs until it gets back to the start configuration
+                while (!config.equals(start)) {
+                    solution.add(0, config);  // Adds the configuration to the front of the LinkedList
+                    config = predecessorMap.get(config);  // Gets the previous config to the current one
+                }
+                solution.add(0, config);  // Adds the start config to the LinkedList
+                return solution;
+            }
+
+            frontier = next;
+        }
+
+        // Runs if no solution was found
+        elapsed = System.nanoTime() - begin;
+        printConfigs(print);
+        return null;
+    }
+
+    /**
+     * Expands the first limit configs of a level in the pool and merges their unvisited neighbors in order.
+     * @param frontier the current level
+     * @param limit how many configs of the level to expand
+     * @return the next level
+     */
+    private List<C> expand(List<C> frontier, int limit) {
+        List<LinkedList<C>> neighbors = new ArrayList<>(Collections.nCopies(limit, null));
+        pool.invoke(new ExpandTask<>(frontier.subList(0, limit), neighbors, 0, limit));
+        expanded += limit;
+
+        List<C> next = new ArrayList<>();
+        for (int i = 0; i < limit; i++) {
+            C config = frontier.get(i);
+            for (C neighbor : neighbors.get(i)) {
+                totalConfigs++;  // Adds 1 to the total config count
+
+                // If the neighbor has not been previously visited its queued and added to the predecessorMap
+                if (!predecessorMap.containsKey(neighbor)) {
+                    next.add(neighbor);
+                    predecessorMap.put(neighbor, config);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Stops the threads of the pool. The solver can't be used after this.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Returns the number of configurations whose neighbors were generated during the last solve.
+     * @return the number of expanded configurations
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Returns the number of configurations expanded per second during the last solve.
+     * @return the expansion throughput
+     */
+    public double getThroughput() {
+        return elapsed == 0 ? 0 : expanded * 1e9 / elapsed;
+    }
+
+    /**
+     * Prints the total and unique config counts the same way {@link Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
+            System.out.println("Unique configs: " + predecessorMap.size());  // Prints the unique config count
+        }
+    }
+}
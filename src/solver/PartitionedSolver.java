@@ -0,0 +1,412 @@
+package solver;
+
+import java.util.*;
+
+/**
+ * A shared-nothing version of the BFS in {@link Solver}, with the configurations split among a number of
+ * workers by the hash of their canonical form. Each worker runs in its own thread and owns the visited map of its
+ * configurations, and nothing else is shared: the neighbors a worker finds are sent in batches through a
+ * {@link Transport} to the inbound queue of the worker that owns them, which decides if they are new.
+ *
+ * The workers still go level by level. The last batch each worker sends every other one during a level carries
+ * whether it found a solution and how many configurations it found, and since batches between two workers arrive
+ * in order, a worker knows every configuration of the level has reached it once it has the last batch from all
+ * the others. Every worker then knows the same totals, so they all stop after the same level, when one of them
+ * found a solution or none of them found anything. The path returned is as short as the one {@link Solver}
+ * returns, but can be a different one.
+ *
+ * @author Luke Chelius
+ */
+public class PartitionedSolver<C extends Configuration> {
+
+    /**
+     * The number of configurations a worker collects for another before sending them.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * How the configurations are sent between workers.
+     */
+    private Transport<C> transport;
+
+    /**
+     * The workers, one per partition.
+     */
+    private Worker[] workers;
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * The first exception thrown by a worker, which stops the others.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * How long the last solve took in nanoseconds.
+     */
+    private long elapsed;
+
+    /**
+     * Creates a new PartitionedSolver with a number of workers that send each other configurations through
+     * queues in this process.
+     * @param start the starting configuration
+     * @param workers the number of workers
+     */
+    public PartitionedSolver(C start, int workers) {
+        this(start, new QueueTransport<>(workers));
+    }
+
+    /**
+     * Creates a new PartitionedSolver with one worker for every worker the transport connects.
+     * @param start the starting configuration
+     * @param transport how the configurations are sent between workers
+     */
+    @SuppressWarnings("unchecked")
+    public PartitionedSolver(C start, Transport<C> transport) {
+        this.transport = transport;
+        this.start = start;
+        this.workers = new PartitionedSolver.Worker[transport.workers()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i);
+        }
+    }
+
+    /**
+     * Returns the worker that owns a configuration, from the high bits of its mixed hash so that partitions
+     * stay even when the hash only varies in a few bits.
+     * @param canonical the canonical form of the configuration
+     * @return the index of the owning worker
+     */
+    private int owner(Object canonical) {
+        int hash = canonical.hashCode();
+        hash = (hash ^ hash >>> 16) * 0x9E3779B1;
+        return (int) ((hash & 0xFFFFFFFFL) * workers.length >>> 32);
+    }
+
+    /**
+     * One partition of the search, with its own visited map, frontier and outbound batches.
+     */
+    private class Worker implements Runnable {
+
+        /**
+         * The index of the worker.
+         */
+        private final int id;
+
+        /**
+         * The configurations this worker owns by canonical form, each with the configuration it was reached from.
+         */
+        private final HashMap<Object, C> visited;
+
+        /**
+         * The configurations of the current level this worker owns.
+         */
+        private ArrayList<C> frontier;
+
+        /**
+         * The new configurations of the next level this worker owns.
+         */
+        private ArrayList<C> next;
+
+        /**
+         * The configurations waiting to be sent to each worker.
+         */
+        private final ArrayList<C>[] outConfigs;
+
+        /**
+         * The configuration each waiting configuration was reached from.
+         */
+        private final ArrayList<C>[] outParents;
+
+        /**
+         * Batches from workers that are already on the next level.
+         */
+        private final ArrayDeque<Transport.Batch<C>> deferred;
+
+        /**
+         * The level being expanded.
+         */
+        private int level;
+
+        /**
+         * The number of configurations found during the current level.
+         */
+        private long sent;
+
+        /**
+         * True if a solution was found during the current level.
+         */
+        private boolean solutionFound;
+
+        /**
+         * The first solution this worker owns, null if it has none.
+         */
+        private C goal;
+
+        /**
+         * The total number of configurations this worker found, including duplicates.
+         */
+        private long totalConfigs;
+
+        /**
+         * The number of configurations whose neighbors this worker generated.
+         */
+        private long expanded;
+
+        /**
+         * The number of batches this worker sent through the transport.
+         */
+        private long batches;
+
+        /**
+         * Creates a worker with nothing visited.
+         * @param id the index of the worker
+         */
+        @SuppressWarnings("unchecked")
+        Worker(int id) {
+            this.id = id;
+            this.visited = new HashMap<>();
+            this.frontier = new ArrayList<>();
+            this.next = new ArrayList<>();
+            this.outConfigs = new ArrayList[workers.length];
+            this.outParents = new ArrayList[workers.length];
+            for (int i = 0; i < workers.length; i++) {
+                outConfigs[i] = new ArrayList<>();
+                outParents[i] = new ArrayList<>();
+            }
+            this.deferred = new ArrayDeque<>();
+        }
+
+        /**
+         * Expands the frontier and collects the next level until every worker agrees the search is over.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            try {
+                while (true) {
+                    sent = 0;
+                    solutionFound = false;
+                    for (C config : frontier) {
+                        expanded++;
+                        config.forEachNeighbor(neighbor -> found((C) neighbor, config));
+                    }
+                    frontier = null;
+
+                    // Tells every other worker the level is over for this one, along with how it went
+                    for (int to = 0; to < workers.length; to++) {
+                        if (to != id) {
+                            flush(to, true);
+                        }
+                    }
+                    boolean solution = solutionFound;
+                    long total = sent;
+                    int finished = 1;
+                    int waiting = deferred.size();
+                    while (finished < workers.length) {
+                        Transport.Batch<C> batch = waiting > 0 ? deferred.remove() : transport.receive(id);
+                        waiting--;
+                        // A worker that already finished this level can send batches of the next one
+                        if (batch.level() != level) {
+                            deferred.add(batch);
+                            continue;
+                        }
+                        for (int i = 0; i < batch.configs().size(); i++) {
+                            visit(batch.configs().get(i), batch.parents().get(i));
+                        }
+                        if (batch.last()) {
+                            finished++;
+                            solution |= batch.solution();
+                            total += batch.sent();
+                        }
+                    }
+
+                    if (solution || total == 0) {
+                        return;
+                    }
+                    frontier = next;
+                    next = new ArrayList<>();
+                    level++;
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Sends a neighbor to the worker that owns it, or visits it right away if this worker does.
+         * @param neighbor the neighbor
+         * @param parent the configuration it was reached from
+         */
+        private void found(C neighbor, C parent) {
+            totalConfigs++;
+            sent++;
+            solutionFound |= neighbor.isSolution();
+            int to = owner(neighbor.canonical());
+            if (to == id) {
+                visit(neighbor, parent);
+                return;
+            }
+            outConfigs[to].add(neighbor);
+            outParents[to].add(parent);
+            if (outConfigs[to].size() >= BATCH_SIZE) {
+                flush(to, false);
+            }
+        }
+
+        /**
+         * Sends the configurations waiting for a worker as one batch.
+         * @param to the worker to send them to
+         * @param last true if it is the last batch to that worker this level
+         */
+        private void flush(int to, boolean last) {
+            transport.send(to, new Transport.Batch<>(id, level, outConfigs[to], outParents[to], last, solutionFound,
+                    sent));
+            batches++;
+            outConfigs[to] = new ArrayList<>();
+            outParents[to] = new ArrayList<>();
+        }
+
+        /**
+         * Adds a configuration this worker owns to the next level if it hasn't been visited.
+         * @param config the configuration
+         * @param parent the configuration it was reached from
+         */
+        private void visit(C config, C parent) {
+            Object canonical = config.canonical();
+            if (!visited.containsKey(canonical)) {
+                visited.put(canonical, parent);
+                next.add(config);
+                if (goal == null && config.isSolution()) {
+                    goal = config;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs every worker in its own thread until they agree the search is over.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     */
+    public LinkedList<C> solve(boolean print) {
+        long begin = System.nanoTime();
+        Worker first = workers[owner(start.canonical())];
+        first.visited.put(start.canonical(), null);
+        if (start.isSolution()) {
+            elapsed = System.nanoTime() - begin;
+            printConfigs(print);
+            LinkedList<C> solution = new LinkedList<>();
+            solution.add(start);
+            return solution;
+        }
+        first.frontier.add(start);
+
+        // A worker that throws interrupts the rest, which would otherwise wait for its batches forever
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(workers[i], "partition-" + i);
+            threads[i].setUncaughtExceptionHandler((thread, e) -> {
+                if (failure == null) {
+                    failure = e instanceof RuntimeException r ? r : new IllegalStateException(e);
+                }
+                for (Thread other : threads) {
+                    other.interrupt();
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        catch (InterruptedException e) {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the workers", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        elapsed = System.nanoTime() - begin;
+        printConfigs(print);
+
+        // Takes the solution of the first worker that owns one, then asks each config's owner for its parent
+        C config = null;
+        for (Worker worker : workers) {
+            if (config == null) {
+                config = worker.goal;
+            }
+        }
+        if (config == null) {
+            return null;
+        }
+        LinkedList<C> solution = new LinkedList<>();  // Empty LinkedList for the solution configs
+        while (!config.equals(start)) {
+            solution.add(0, config);  // Adds the configuration to the front of the LinkedList
+            Object canonical = config.canonical();
+            config = workers[owner(canonical)].visited.get(canonical);  // Gets the config before the current one
+        }
+        solution.add(0, config);  // Adds the start config to the LinkedList
+        return solution;
+    }
+
+    /**
+     * Returns the number of configurations whose neighbors were generated during the last solve.
+     * @return the number of expanded configurations
+     */
+    public long getExpanded() {
+        long expanded = 0;
+        for (Worker worker : workers) {
+            expanded += worker.expanded;
+        }
+        return expanded;
+    }
+
+    /**
+     * Returns the number of batches the workers sent each other during the last solve.
+     * @return the number of batches
+     */
+    public long getBatches() {
+        long batches = 0;
+        for (Worker worker : workers) {
+            batches += worker.batches;
+        }
+        return batches;
+    }
+
+    /**
+     * Returns the number of configurations expanded per second during the last solve.
+     * @return the expansion throughput
+     */
+    public double getThroughput() {
+        return elapsed == 0 ? 0 : getExpanded() * 1e9 / elapsed;
+    }
+
+    /**
+     * Prints the total and unique config counts the same way {@link Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            long total = 1;
+            int unique = 0;
+            for (Worker worker : workers) {
+                total += worker.totalConfigs;
+                unique += worker.visited.size();
+            }
+            System.out.println("Total configs: " + total);  // Prints the total config count
+            System.out.println("Unique configs: " + unique);  // Prints the unique config count
+        }
+    }
+}
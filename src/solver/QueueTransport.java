@@ -0,0 +1,59 @@
+package solver;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A {@link Transport} between workers in the same process, with a blocking queue as each worker's inbound queue.
+ *
+ * @author Luke Chelius
+ */
+public class QueueTransport<C> implements Transport<C> {
+
+    /**
+     * The inbound queue of each worker.
+     */
+    private final BlockingQueue<Batch<C>>[] queues;
+
+    /**
+     * Creates a new QueueTransport between a number of workers.
+     * @param workers the number of workers
+     */
+    @SuppressWarnings("unchecked")
+    public QueueTransport(int workers) {
+        this.queues = new BlockingQueue[workers];
+        for (int i = 0; i < workers; i++) {
+            queues[i] = new LinkedBlockingQueue<>();
+        }
+    }
+
+    /**
+     * Returns the number of workers the transport connects.
+     * @return the number of workers
+     */
+    @Override
+    public int workers() {
+        return queues.length;
+    }
+
+    /**
+     * Puts a batch in a worker's inbound queue.
+     * @param to the worker the batch is for
+     * @param batch the batch
+     */
+    @Override
+    public void send(int to, Batch<C> batch) {
+        queues[to].add(batch);
+    }
+
+    /**
+     * Takes the next batch from a worker's inbound queue, waiting for one if it is empty.
+     * @param worker the worker receiving
+     * @return the batch
+     * @throws InterruptedException thrown if the worker is stopped while waiting
+     */
+    @Override
+    public Batch<C> receive(int worker) throws InterruptedException {
+        return queues[worker].take();
+    }
+}
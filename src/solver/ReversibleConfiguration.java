@@ -0,0 +1,26 @@
+package solver;
+
+import java.util.*;
+
+/**
+ * Optional extension of {@link Configuration} for puzzles whose goal states can be listed and whose moves
+ * can be run backwards, which lets {@link BidirectionalSolver} search from both ends at once.
+ *
+ * @author Luke Chelius
+ */
+public interface ReversibleConfiguration<E> extends Configuration<E> {
+
+    /**
+     * Returns a LinkedList of every configuration of the puzzle that is a solution. Every config in the list
+     * must return true from isSolution.
+     * @return a LinkedList of all goal configurations
+     */
+    public LinkedList<E> getGoals();
+
+    /**
+     * Returns a LinkedList of all the configurations that have this configuration as one of their neighbors,
+     * the moves that lead into this configuration.
+     * @return a LinkedList of all predecessors
+     */
+    public LinkedList<E> getPredecessors();
+}
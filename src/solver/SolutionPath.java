@@ -0,0 +1,232 @@
+package solver;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A solution path kept as its starting configuration and the number of each move, as given by
+ * {@link Configuration#moveTo}, instead of every configuration along the way. A move takes a byte when every
+ * move number is below 256, which covers every puzzle with fewer than 256 neighbors. Configurations are only made
+ * when asked for: going through the path in order makes each one from the last, and getting a step at random
+ * starts from the nearest checkpoint, a configuration kept every CHECKPOINT_INTERVAL steps once it has been made.
+ *
+ * @author Luke Chelius
+ */
+public class SolutionPath<C extends Configuration> implements Iterable<C> {
+
+    /**
+     * The number of steps between the configurations kept for getting steps at random.
+     */
+    private static final int CHECKPOINT_INTERVAL = 64;
+
+    /**
+     * The starting configuration.
+     */
+    private final C start;
+
+    /**
+     * The move taken at each step, null if a move doesn't fit in a byte.
+     */
+    private final byte[] moves;
+
+    /**
+     * The move taken at each step when a move doesn't fit in a byte, null otherwise.
+     */
+    private final int[] wideMoves;
+
+    /**
+     * The number of moves in the path.
+     */
+    private final int length;
+
+    /**
+     * The configuration at every CHECKPOINT_INTERVAL steps, null where it hasn't been made yet.
+     */
+    private final Object[] checkpoints;
+
+    /**
+     * Creates a path from its start and the number of each move.
+     * @param start the starting configuration
+     * @param moves the number of each move, in order
+     * @throws IllegalArgumentException if a move number is negative
+     */
+    public SolutionPath(C start, int[] moves) {
+        int largest = 0;
+        for (int move : moves) {
+            if (move < 0) {
+                throw new IllegalArgumentException("Negative move: " + move);
+            }
+            largest = Math.max(largest, move);
+        }
+        this.start = start;
+        this.length = moves.length;
+        if (largest < 256) {
+            this.moves = new byte[moves.length];
+            for (int i = 0; i < moves.length; i++) {
+                this.moves[i] = (byte) moves[i];
+            }
+            this.wideMoves = null;
+        }
+        else {
+            this.moves = null;
+            this.wideMoves = moves.clone();
+        }
+        this.checkpoints = new Object[moves.length / CHECKPOINT_INTERVAL + 1];
+        this.checkpoints[0] = start;
+    }
+
+    /**
+     * Makes a path out of the configurations of a solution, keeping only the first one and the moves between
+     * them.
+     * @param path the configurations in order, each a neighbor of the one before
+     * @return the path, or null if path is null
+     * @throws IllegalArgumentException if a configuration isn't a neighbor of the one before it
+     */
+    @SuppressWarnings("unchecked")
+    public static <C extends Configuration> SolutionPath<C> of(List<C> path) {
+        if (path == null) {
+            return null;
+        }
+        int[] moves = new int[path.size() - 1];
+        Iterator<C> configs = path.iterator();
+        C config = configs.next();
+        for (int i = 0; configs.hasNext(); i++) {
+            C next = configs.next();
+            moves[i] = config.moveTo(next);
+            if (moves[i] < 0) {
+                throw new IllegalArgumentException("Step " + (i + 1) + " is not a neighbor of step " + i);
+            }
+            config = next;
+        }
+        return new SolutionPath<>(path.get(0), moves);
+    }
+
+    /**
+     * Returns the starting configuration.
+     * @return the start
+     */
+    public C getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the number of configurations in the path, the start included, the same as the size of the list
+     * the solvers return.
+     * @return the number of configurations
+     */
+    public int size() {
+        return length + 1;
+    }
+
+    /**
+     * Returns the number of moves in the path.
+     * @return the number of moves
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the number of the move that leads from a step to the next one.
+     * @param step the step the move is made from, between 0 and getLength() - 1
+     * @return the number of the move
+     */
+    public int getMove(int step) {
+        Objects.checkIndex(step, length);
+        return moves != null ? moves[step] & 0xFF : wideMoves[step];
+    }
+
+    /**
+     * Returns the configuration at a step, made from the closest checkpoint before it, which is kept for later.
+     * @param step the step, between 0 and getLength()
+     * @return the configuration
+     */
+    @SuppressWarnings("unchecked")
+    public C get(int step) {
+        Objects.checkIndex(step, length + 1);
+        int checkpoint = step / CHECKPOINT_INTERVAL;
+        while (checkpoints[checkpoint] == null) {
+            checkpoint--;
+        }
+        C config = (C) checkpoints[checkpoint];
+        for (int i = checkpoint * CHECKPOINT_INTERVAL; i < step; i++) {
+            config = (C) config.move(getMove(i));
+            if ((i + 1) % CHECKPOINT_INTERVAL == 0) {
+                checkpoints[(i + 1) / CHECKPOINT_INTERVAL] = config;
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Returns an iterator that makes each configuration from the one before, holding only the current one.
+     * @return an iterator over the configurations in order
+     */
+    @Override
+    public Iterator<C> iterator() {
+        return new Iterator<>() {
+
+            /**
+             * The step of the next configuration.
+             */
+            private int step = 0;
+
+            /**
+             * The configuration at the step before, null before the start.
+             */
+            private C config = null;
+
+            @Override
+            public boolean hasNext() {
+                return step <= length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public C next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                config = step == 0 ? start : (C) config.move(getMove(step - 1));
+                step++;
+                return config;
+            }
+        };
+    }
+
+    /**
+     * Makes every configuration of the path, for code that needs them all at once.
+     * @return a LinkedList of the configurations in order
+     */
+    public LinkedList<C> toList() {
+        LinkedList<C> list = new LinkedList<>();
+        for (C config : this) {
+            list.add(config);
+        }
+        return list;
+    }
+
+    /**
+     * Writes each step as "Step n:", a separator and the configuration on its own line, making each
+     * configuration only as it is written.
+     * @param out where the steps are written
+     * @param separator what goes between the step label and the configuration, like " " or " \n"
+     * @throws IOException thrown if the output can't be written to
+     */
+    public void write(Appendable out, String separator) throws IOException {
+        int step = 0;
+        for (C config : this) {
+            out.append("Step ").append(String.valueOf(step)).append(':').append(separator)
+                    .append(String.valueOf(config)).append(System.lineSeparator());
+            step++;
+        }
+    }
+
+    /**
+     * Returns the number of bytes used by the moves, not counting the start or any checkpoints.
+     * @return the size of the moves in bytes
+     */
+    public long movesBytes() {
+        return moves != null ? moves.length : 4L * wideMoves.length;
+    }
+}
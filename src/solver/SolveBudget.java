@@ -0,0 +1,153 @@
+package solver;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits on how long a solve may run. A budget can have a deadline, a maximum number of configurations to expand
+ * and a cancellation flag that another thread can set, and can call a {@link ProgressListener} every so many
+ * expansions. The solver checks the budget before every expansion.
+ *
+ * @author Luke Chelius
+ */
+public class SolveBudget {
+
+    /**
+     * Called by a solver every so many expansions to report how far it has gotten.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Reports the progress of a solve.
+         * @param expanded the number of configurations expanded so far
+         * @param unique the number of configurations visited so far
+         * @param depth the number of moves from the start to the configurations being expanded
+         */
+        void progress(long expanded, long unique, int depth);
+    }
+
+    /**
+     * The System.nanoTime after which the solve stops, or Long.MAX_VALUE for no deadline.
+     */
+    private long deadline;
+
+    /**
+     * True if there is a deadline.
+     */
+    private boolean hasDeadline;
+
+    /**
+     * The most configurations the solve may expand.
+     */
+    private long maxExpanded;
+
+    /**
+     * Set to stop the solve, safe to set from any thread.
+     */
+    private final AtomicBoolean cancelled;
+
+    /**
+     * Called every progressInterval expansions, or null for none.
+     */
+    private ProgressListener listener;
+
+    /**
+     * The number of expansions between calls to the listener.
+     */
+    private long progressInterval;
+
+    /**
+     * Creates a budget with no limits.
+     */
+    public SolveBudget() {
+        this.hasDeadline = false;
+        this.maxExpanded = Long.MAX_VALUE;
+        this.cancelled = new AtomicBoolean(false);
+        this.listener = null;
+        this.progressInterval = Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns a budget with no limits, which is what {@link Solver#solve(boolean)} runs with.
+     * @return a new budget with no limits
+     */
+    public static SolveBudget unlimited() {
+        return new SolveBudget();
+    }
+
+    /**
+     * Stops the solve once an amount of time has passed from now.
+     * @param timeLimit how long the solve may run
+     * @return this budget
+     */
+    public SolveBudget withTimeLimit(Duration timeLimit) {
+        this.deadline = System.nanoTime() + timeLimit.toNanos();
+        this.hasDeadline = true;
+        return this;
+    }
+
+    /**
+     * Stops the solve once it has expanded a number of configurations.
+     * @param maxExpanded the most configurations the solve may expand
+     * @return this budget
+     */
+    public SolveBudget withMaxExpanded(long maxExpanded) {
+        this.maxExpanded = maxExpanded;
+        return this;
+    }
+
+    /**
+     * Calls a listener every time a number of configurations have been expanded.
+     * @param interval the number of expansions between calls
+     * @param listener the listener to call
+     * @return this budget
+     */
+    public SolveBudget withProgress(long interval, ProgressListener listener) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Progress interval must be positive: " + interval);
+        }
+        this.progressInterval = interval;
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Stops the solve at its next expansion. Can be called from any thread.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Checks if the solve has been cancelled.
+     * @return true if cancel was called, false otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Checks if the solve has to stop before expanding another configuration, and calls the listener if it is
+     * time to.
+     * @param expanded the number of configurations expanded so far
+     * @param unique the number of configurations visited so far
+     * @param depth the depth of the configuration about to be expanded
+     * @return why the solve has to stop, or null if it can go on
+     */
+    String check(long expanded, long unique, int depth) {
+        if (listener != null && expanded > 0 && expanded % progressInterval == 0) {
+            listener.progress(expanded, unique, depth);
+        }
+        if (cancelled.get()) {
+            return "cancelled";
+        }
+        if (expanded >= maxExpanded) {
+            return "expanded " + expanded + " configurations, the maximum";
+        }
+        if (hasDeadline && System.nanoTime() - deadline >= 0) {
+            return "ran out of time";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+package solver;
+
+import java.util.LinkedList;
+
+/**
+ * The outcome of a solve with a {@link SolveBudget}: whether a solution was found, proven not to exist, or the
+ * budget ran out first, along with the stats collected up to that point.
+ *
+ * @author Luke Chelius
+ */
+public class SolveResult<C extends Configuration> {
+
+    /**
+     * How a budgeted solve ended.
+     */
+    public enum Status {
+        /** A shortest path to a solution was found. */
+        SOLVED,
+        /** Every reachable configuration was searched and none is a solution. */
+        UNSOLVABLE,
+        /** The budget ran out before the search finished. */
+        BUDGET_EXHAUSTED
+    }
+
+    /**
+     * How the solve ended.
+     */
+    private final Status status;
+
+    /**
+     * The solution path, null unless the status is SOLVED.
+     */
+    private final LinkedList<C> path;
+
+    /**
+     * Why the budget ran out, null unless the status is BUDGET_EXHAUSTED.
+     */
+    private final String reason;
+
+    /**
+     * The measurements of the solve, partial if the budget ran out.
+     */
+    private final SolverStats stats;
+
+    /**
+     * Creates a SolveResult.
+     * @param status how the solve ended
+     * @param path the solution path, or null if there isn't one
+     * @param reason why the budget ran out, or null if it didn't
+     * @param stats the measurements of the solve
+     */
+    public SolveResult(Status status, LinkedList<C> path, String reason, SolverStats stats) {
+        this.status = status;
+        this.path = path;
+        this.reason = reason;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns how the solve ended.
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the solution path.
+     * @return a LinkedList of the configurations from the start to a solution, or null if none was found
+     */
+    public LinkedList<C> getPath() {
+        return path;
+    }
+
+    /**
+     * Returns why the budget ran out.
+     * @return the reason, or null if the budget didn't run out
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns the measurements of the solve, covering only the part that ran if the budget ran out.
+     * @return the stats
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+}
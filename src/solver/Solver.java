@@ -1,6 +1,7 @@
 package solver;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * This class contains a universal algorithm to find a path from a starting
@@ -16,7 +17,8 @@ public class Solver<C extends Configuration> {
     private LinkedList<C> queue;
 
     /**
-     * HashMap of the previously visited nodes to prevent duplicates.
+     * HashMap of the canonical form of the previously visited nodes to the node they were reached from, to
+     * prevent duplicates.
      */
     private HashMap<C, C> predecessorMap;
 
@@ -30,6 +32,31 @@ public class Solver<C extends Configuration> {
      */
     private int totalConfigs;
 
+    /**
+     * The measurements of the last solve.
+     */
+    private SolverStats stats;
+
+    /**
+     * The configuration whose neighbors are being visited.
+     */
+    private C expanding;
+
+    /**
+     * Checks each neighbor handed over by forEachNeighbor, made once so expanding a config allocates nothing.
+     */
+    private final Consumer<C> visitor = this::visit;
+
+    /**
+     * True to skip configurations that report they are dead ends instead of searching past them.
+     */
+    private boolean pruneDeadEnds;
+
+    /**
+     * The solution the last search stopped at, null if it found none.
+     */
+    private C goal;
+
     /**
      * Creates a new Solver object, initializes the queue and predecessorMap, and sets the
      * total configurations to 0.
@@ -39,6 +66,18 @@ public class Solver<C extends Configuration> {
         this.predecessorMap = new HashMap<>();
         this.start = start;
         this.totalConfigs = 0;
+        this.stats = new SolverStats();
+        this.pruneDeadEnds = false;
+    }
+
+    /**
+     * Sets whether configurations whose isDeadEnd is true are skipped. A dead end start returns unsolvable
+     * without searching. The counts printed and in the stats then leave the dead ends out, so it is off by
+     * default to keep them the same as a plain BFS.
+     * @param pruneDeadEnds true to skip dead ends, false to search them like any other configuration
+     */
+    public void setPruneDeadEnds(boolean pruneDeadEnds) {
+        this.pruneDeadEnds = pruneDeadEnds;
     }
 
     /**
@@ -49,50 +88,156 @@ public class Solver<C extends Configuration> {
      * to the end node in the least number of steps
      */
     public LinkedList<C> solve(boolean print) {
+        return search(print, SolveBudget.unlimited(), true).getPath();
+    }
+
+    /**
+     * Performs the same BFS as solve(boolean), but returns the path as a {@link SolutionPath}, made while
+     * following the predecessors back from the solution one move at a time, so no list of the configurations is
+     * ever made and a long path costs a few bytes a step.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return the path, or null if there is no solution
+     */
+    @SuppressWarnings("unchecked")
+    public SolutionPath<C> solvePath(boolean print) {
+        if (search(print, SolveBudget.unlimited(), false).getStatus() != SolveResult.Status.SOLVED) {
+            return null;
+        }
+
+        // Fills in the moves from the last one back, the depth of the solution being the number of moves
+        int[] moves = new int[stats.getSolutionMoves()];
+        C config = goal;
+        for (int i = moves.length - 1; i >= 0; i--) {
+            C predecessor = predecessorMap.get((C) config.canonical());  // Gets the config before the current one
+            moves[i] = predecessor.moveTo(config);
+            config = predecessor;
+        }
+        return new SolutionPath<>(start, moves);
+    }
+
+    /**
+     * Performs the same BFS as solve(boolean), but stops early if the budget runs out.
+     * @param budget the limits on the search
+     * @return the result, with the solution path if one was found and the stats of the search so far
+     */
+    public SolveResult<C> solve(SolveBudget budget) {
+        return search(false, budget, true);
+    }
+
+    /**
+     * Runs the BFS, checking the budget before every expansion.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @param budget the limits on the search
+     * @param makePath true to make the solution path as a list, false to only keep the solution in goal
+     * @return the result of the search
+     */
+    @SuppressWarnings("unchecked")
+    private SolveResult<C> search(boolean print, SolveBudget budget, boolean makePath) {
+        stats.begin();
+        goal = null;
+
+        // A start that can't reach a solution doesn't need to be searched
+        if (pruneDeadEnds && start.isDeadEnd()) {
+            printConfigs(print);
+            stats.end(totalConfigs, predecessorMap.size(), predecessorMap.size(), null);
+            return new SolveResult<>(SolveResult.Status.UNSOLVABLE, null, null, stats);
+        }
+
         // Adds the start configuration to the queue and predecessorMap
         queue.add(start);
-        predecessorMap.put(start, null);
+        predecessorMap.put((C) start.canonical(), null);
         totalConfigs++;  // Adds 1 to the configuration count
+        int levelLeft = 0;  // Configs left in the current level, the queue holds exactly the next level at 0
+        int depth = -1;  // The depth of the current level
+        long expanded = 0;  // The number of configs expanded
 
         // Runs until the queue is empty
         while (!queue.isEmpty()) {
+            if (levelLeft == 0) {
+                levelLeft = queue.size();
+                depth++;
+                stats.startLevel(levelLeft);
+            }
+            levelLeft--;
             C config = queue.remove(0);  // Removes the first element from queue
 
             // If this node is the end node it prints the configurations and returns the list
             // of configurations in order of which to visit for the shortest path
             if (config.isSolution()) {
                 printConfigs(print);
+                goal = config;
+
+                // The path is made by the caller from the predecessors, the depth being its number of moves
+                if (!makePath) {
+                    stats.end(totalConfigs, predecessorMap.size(), predecessorMap.size(), depth);
+                    return new SolveResult<>(SolveResult.Status.SOLVED, null, null, stats);
+                }
 
                 LinkedList<C> solution = new LinkedList<>();  // Empty LinkedList for the solution configs
 
                 // Runs until it gets back to the start configuration
                 while (!config.equals(start)) {
                     solution.add(0, config);  // Adds the configuration to the front of the LinkedList
-                    config = predecessorMap.get(config);  // Gets the previous config to the current one
+                    config = predecessorMap.get((C) config.canonical());  // Gets the config before the current one
                 }
                 solution.add(0, config);  // Adds the start config to the LinkedList
-                return solution;
+                stats.end(totalConfigs, predecessorMap.size(), predecessorMap.size(), solution);
+                return new SolveResult<>(SolveResult.Status.SOLVED, solution, null, stats);
             }
 
-            LinkedList<C> neighbors = config.getNeighbors();  // Gets the neighbors of the current config
+            // Stops if the budget ran out, leaving the config unexpanded
+            String reason = budget.check(expanded, predecessorMap.size(), depth);
+            if (reason != null) {
+                printConfigs(print);
+                stats.end(totalConfigs, predecessorMap.size(), predecessorMap.size(), null);
+                return new SolveResult<>(SolveResult.Status.BUDGET_EXHAUSTED, null, reason, stats);
+            }
 
-            // Runs for each neighbor of the current config
-            for (C neighbor : neighbors) {
-                totalConfigs++;  // Adds 1 to the total config count
+            stats.expanded();
+            expanded++;
 
-                // If the neighbor has not been previously visited its queued and added to the predecessorMap
-                if (!predecessorMap.containsKey(neighbor)) {
-                    queue.add(neighbor);
-                    predecessorMap.put(neighbor, config);
-                }
-            }
+            // Visits each neighbor of the current config as it is made
+            expanding = config;
+            config.forEachNeighbor(visitor);
         }
 
         // Runs if no solution was found
         printConfigs(print);
-        return null;
+        stats.end(totalConfigs, predecessorMap.size(), predecessorMap.size(), null);
+        return new SolveResult<>(SolveResult.Status.UNSOLVABLE, null, null, stats);
+    }
+
+    /**
+     * Checks a neighbor of the config being expanded, queueing it if it hasn't been visited.
+     * @param neighbor the neighbor
+     */
+    @SuppressWarnings("unchecked")
+    private void visit(C neighbor) {
+        totalConfigs++;  // Adds 1 to the total config count
+        C canonical = (C) neighbor.canonical();
+        boolean visited = predecessorMap.containsKey(canonical);
+        stats.generated(visited);
+
+        // If the neighbor has not been previously visited its queued and added to the predecessorMap, unless it
+        // is a dead end being pruned
+        if (!visited && !(pruneDeadEnds && neighbor.isDeadEnd())) {
+            queue.add(neighbor);
+            predecessorMap.put(canonical, expanding);
+        }
     }
 
+    /**
+     * Returns the measurements of the last solve, per level and in total.
+     * @return the stats of the last solve
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Prints the total and unique config counts.
+     * @param print a boolean, true to print, false not to
+     */
     public void printConfigs(boolean print) {
         if (print) {
             System.out.println("Total configs: " + totalConfigs);  // Prints the total config count
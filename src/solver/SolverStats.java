@@ -0,0 +1,382 @@
+package solver;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Measurements of one solve, kept level by level so runs can be compared between releases. A solver creates one,
+ * calls {@link #begin()} before searching, {@link #startLevel} at the start of each level of the search,
+ * {@link #expanded()} and {@link #generated} as it expands the level, and {@link #end} when it returns. A solver
+ * outside this package that expands a whole level at once counts it with {@link #expandedLevel} instead. The
+ * result can be read through the getters or exported as JSON or CSV.
+ *
+ * @author Luke Chelius
+ */
+public class SolverStats {
+
+    /**
+     * One level of the search.
+     * @param depth the number of moves from the start to the configurations in the level
+     * @param frontier the number of configurations in the level
+     * @param expanded the number of configurations in the level whose neighbors were generated, less than
+     *                 frontier only on the level where the solution was found
+     * @param generated the number of neighbors generated from the level, including duplicates
+     * @param duplicates the number of generated neighbors that had already been visited
+     * @param nanos the wall time spent expanding the level, in nanoseconds
+     */
+    public record Level(int depth, long frontier, long expanded, long generated, long duplicates, long nanos) {}
+
+    /**
+     * The levels of the search in order of depth.
+     */
+    private final List<Level> levels;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private long totalConfigs;
+
+    /**
+     * The number of configurations visited.
+     */
+    private long uniqueConfigs;
+
+    /**
+     * The largest number of configurations the visited set held at once.
+     */
+    private long peakVisited;
+
+    /**
+     * The number of moves in the solution, or -1 if there was no solution.
+     */
+    private int solutionMoves;
+
+    /**
+     * The System.nanoTime when the search began.
+     */
+    private long beginNanos;
+
+    /**
+     * The wall time of the whole search, in nanoseconds.
+     */
+    private long totalNanos;
+
+    /**
+     * The bytes the searching thread had allocated when the search began, or -1 if the JVM can't measure it.
+     */
+    private long beginBytes;
+
+    /**
+     * The bytes the searching thread allocated during the search, or -1 if the JVM can't measure it.
+     */
+    private long allocatedBytes;
+
+    /**
+     * The number of configurations in the level being searched, 0 before the first level.
+     */
+    private long levelFrontier;
+
+    /**
+     * The number of configurations expanded so far in the level being searched.
+     */
+    private long levelExpanded;
+
+    /**
+     * The number of neighbors generated so far from the level being searched.
+     */
+    private long levelGenerated;
+
+    /**
+     * The number of generated neighbors from the level being searched that had already been visited.
+     */
+    private long levelDuplicates;
+
+    /**
+     * The System.nanoTime when the level being searched was started.
+     */
+    private long levelBegin;
+
+    /**
+     * Creates an empty SolverStats.
+     */
+    public SolverStats() {
+        this.levels = new ArrayList<>();
+        this.solutionMoves = -1;
+        this.beginBytes = -1;
+        this.allocatedBytes = -1;
+    }
+
+    /**
+     * Returns the bytes the current thread has allocated so far, from the JVM's ThreadMXBean.
+     * @return the allocated bytes, or -1 if the JVM doesn't support measuring them
+     */
+    private static long threadAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Starts the clock and the allocation counter, called by a solver before it searches.
+     */
+    public void begin() {
+        beginBytes = threadAllocatedBytes();
+        beginNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a new level of the search, finishing the previous one if there is one.
+     * @param frontier the number of configurations in the new level
+     */
+    public void startLevel(long frontier) {
+        endLevel();
+        levelFrontier = frontier;
+        levelBegin = System.nanoTime();
+    }
+
+    /**
+     * Counts a configuration of the current level whose neighbors are being generated.
+     */
+    void expanded() {
+        levelExpanded++;
+    }
+
+    /**
+     * Counts the configurations of the current level whose neighbors were generated and the neighbors, for a
+     * solver that expands a whole level at once.
+     * @param expanded the number of configurations expanded
+     * @param generated the number of neighbors generated, including duplicates
+     * @param duplicates the number of generated neighbors that had already been visited
+     */
+    public void expandedLevel(long expanded, long generated, long duplicates) {
+        levelExpanded += expanded;
+        levelGenerated += generated;
+        levelDuplicates += duplicates;
+    }
+
+    /**
+     * Counts a neighbor generated from the current level.
+     * @param duplicate true if the neighbor had already been visited
+     */
+    void generated(boolean duplicate) {
+        levelGenerated++;
+        if (duplicate) {
+            levelDuplicates++;
+        }
+    }
+
+    /**
+     * Records the current level, if one was started, and clears its counters.
+     */
+    void endLevel() {
+        if (levelFrontier > 0) {
+            levels.add(new Level(levels.size(), levelFrontier, levelExpanded, levelGenerated, levelDuplicates,
+                    System.nanoTime() - levelBegin));
+        }
+        levelFrontier = 0;
+        levelExpanded = 0;
+        levelGenerated = 0;
+        levelDuplicates = 0;
+    }
+
+    /**
+     * Stops the clock and the allocation counter and records the totals, called by a solver before it returns.
+     * @param totalConfigs the total number of configurations found, including duplicates
+     * @param uniqueConfigs the number of configurations visited
+     * @param peakVisited the largest number of configurations the visited set held at once
+     * @param path the solution path, or null if there is none
+     */
+    public void end(long totalConfigs, long uniqueConfigs, long peakVisited, List<?> path) {
+        end(totalConfigs, uniqueConfigs, peakVisited, path == null ? -1 : path.size() - 1);
+    }
+
+    /**
+     * Stops the clock and the allocation counter and records the totals, for a solver that doesn't make the
+     * solution path as a list.
+     * @param totalConfigs the total number of configurations found, including duplicates
+     * @param uniqueConfigs the number of configurations visited
+     * @param peakVisited the largest number of configurations the visited set held at once
+     * @param solutionMoves the number of moves in the solution, -1 if there is none
+     */
+    void end(long totalConfigs, long uniqueConfigs, long peakVisited, int solutionMoves) {
+        endLevel();
+        totalNanos = System.nanoTime() - beginNanos;
+        long endBytes = threadAllocatedBytes();
+        allocatedBytes = beginBytes < 0 || endBytes < 0 ? -1 : endBytes - beginBytes;
+        this.totalConfigs = totalConfigs;
+        this.uniqueConfigs = uniqueConfigs;
+        this.peakVisited = peakVisited;
+        this.solutionMoves = solutionMoves;
+    }
+
+    /**
+     * Returns the levels of the search in order of depth.
+     * @return an unmodifiable list of the levels
+     */
+    public List<Level> getLevels() {
+        return Collections.unmodifiableList(levels);
+    }
+
+    /**
+     * Returns the total number of configurations found, including duplicates.
+     * @return the total config count
+     */
+    public long getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * Returns the number of configurations visited.
+     * @return the unique config count
+     */
+    public long getUniqueConfigs() {
+        return uniqueConfigs;
+    }
+
+    /**
+     * Returns the number of configurations whose neighbors were generated.
+     * @return the expanded config count
+     */
+    public long getExpanded() {
+        return levels.stream().mapToLong(Level::expanded).sum();
+    }
+
+    /**
+     * Returns the largest number of configurations the visited set held at once.
+     * @return the peak visited set size
+     */
+    public long getPeakVisited() {
+        return peakVisited;
+    }
+
+    /**
+     * Returns the number of moves in the solution.
+     * @return the solution length, or -1 if there was no solution
+     */
+    public int getSolutionMoves() {
+        return solutionMoves;
+    }
+
+    /**
+     * Returns the wall time of the whole search.
+     * @return the time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the bytes the searching thread allocated during the search.
+     * @return the allocated bytes, or -1 if the JVM can't measure them
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the average number of neighbors generated for each expanded configuration.
+     * @return the branching factor, or 0 if nothing was expanded
+     */
+    public double getBranchingFactor() {
+        long expanded = getExpanded();
+        return expanded == 0 ? 0 : (double) levels.stream().mapToLong(Level::generated).sum() / expanded;
+    }
+
+    /**
+     * Returns the fraction of generated neighbors that had already been visited.
+     * @return the duplicate hit ratio, or 0 if nothing was generated
+     */
+    public double getDuplicateRatio() {
+        long generated = levels.stream().mapToLong(Level::generated).sum();
+        return generated == 0 ? 0 : (double) levels.stream().mapToLong(Level::duplicates).sum() / generated;
+    }
+
+    /**
+     * Returns how many configurations were expanded per second of the search.
+     * @return the expansion throughput, or 0 if the search took no measurable time
+     */
+    public double getNodesPerSecond() {
+        return totalNanos == 0 ? 0 : getExpanded() * 1e9 / totalNanos;
+    }
+
+    /**
+     * Returns the stats as a JSON object with the totals and an array of the levels.
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"totalConfigs\": ").append(totalConfigs).append(",\n");
+        json.append("  \"uniqueConfigs\": ").append(uniqueConfigs).append(",\n");
+        json.append("  \"expanded\": ").append(getExpanded()).append(",\n");
+        json.append("  \"peakVisited\": ").append(peakVisited).append(",\n");
+        json.append("  \"solutionMoves\": ").append(solutionMoves).append(",\n");
+        json.append("  \"totalNanos\": ").append(totalNanos).append(",\n");
+        json.append("  \"allocatedBytes\": ").append(allocatedBytes).append(",\n");
+        json.append("  \"branchingFactor\": ").append(format(getBranchingFactor())).append(",\n");
+        json.append("  \"duplicateRatio\": ").append(format(getDuplicateRatio())).append(",\n");
+        json.append("  \"nodesPerSecond\": ").append(format(getNodesPerSecond())).append(",\n");
+        json.append("  \"levels\": [");
+        for (int i = 0; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append(String.format(Locale.ROOT, "    {\"depth\": %d, \"frontier\": %d, \"expanded\": %d, "
+                    + "\"generated\": %d, \"duplicates\": %d, \"nanos\": %d}", level.depth(), level.frontier(),
+                    level.expanded(), level.generated(), level.duplicates(), level.nanos()));
+        }
+        json.append(levels.isEmpty() ? "]\n" : "\n  ]\n").append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * Returns the levels as CSV with a header row, one row per level.
+     * @return the CSV text
+     */
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder("depth,frontier,expanded,generated,duplicates,nanos\n");
+        for (Level level : levels) {
+            csv.append(level.depth()).append(',').append(level.frontier()).append(',').append(level.expanded())
+                    .append(',').append(level.generated()).append(',').append(level.duplicates()).append(',')
+                    .append(level.nanos()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Writes the stats to a file, as CSV if its name ends in .csv and as JSON otherwise.
+     * @param file the file to write
+     * @throws IOException thrown if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        Files.writeString(file, file.toString().endsWith(".csv") ? toCsv() : toJson());
+    }
+
+    /**
+     * Writes the stats to the file named by the solver.stats system property, if it is set, so the puzzle mains
+     * can be measured without changing their output. Failures are reported on stderr and otherwise ignored.
+     */
+    public void writeIfRequested() {
+        String file = System.getProperty("solver.stats");
+        if (file != null) {
+            try {
+                write(Path.of(file));
+            }
+            catch (IOException ioe) {
+                System.err.println("Could not write solver stats: " + ioe.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Formats a decimal for JSON without depending on the default locale.
+     * @param value the value to format
+     * @return the value with 3 decimal places
+     */
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
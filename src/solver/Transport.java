@@ -0,0 +1,49 @@
+package solver;
+
+import java.util.List;
+
+/**
+ * Carries batches of configurations between the workers of a {@link PartitionedSolver}. Each worker has an
+ * inbound queue that batches sent to it wait in, and batches from one worker to another have to arrive in the
+ * order they were sent, which is all the solver relies on, so the workers could as well be on different machines.
+ *
+ * @author Luke Chelius
+ */
+public interface Transport<C> {
+
+    /**
+     * A batch of configurations sent to the worker that owns them, each with the configuration it was reached
+     * from. The last batch a worker sends another during a level says how the level went for the sender, which
+     * is how every worker learns the level is over.
+     * @param from the worker that sent the batch
+     * @param level the level the configurations were found on
+     * @param configs the configurations
+     * @param parents the configuration each one was reached from, at the same index
+     * @param last true if it is the sender's last batch to this worker for the level
+     * @param solution for the last batch, true if the sender found a solution anywhere during the level
+     * @param sent for the last batch, how many configurations the sender found during the level
+     */
+    record Batch<C>(int from, int level, List<C> configs, List<C> parents, boolean last, boolean solution,
+                    long sent) {}
+
+    /**
+     * Returns the number of workers the transport connects.
+     * @return the number of workers
+     */
+    int workers();
+
+    /**
+     * Puts a batch in a worker's inbound queue.
+     * @param to the worker the batch is for
+     * @param batch the batch
+     */
+    void send(int to, Batch<C> batch);
+
+    /**
+     * Takes the next batch from a worker's inbound queue, waiting for one if it is empty.
+     * @param worker the worker receiving
+     * @return the batch
+     * @throws InterruptedException thrown if the worker is stopped while waiting
+     */
+    Batch<C> receive(int worker) throws InterruptedException;
+}
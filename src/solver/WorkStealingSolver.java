@@ -0,0 +1,473 @@
+package solver;
+
+import java.util.*;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fully asynchronous parallel version of the BFS in {@link Solver}, with no barrier between levels. Every
+ * configuration is its own task in a ForkJoinPool, whose workers each keep a deque of tasks in the order they
+ * were made and steal from each other when they run out, so uneven levels don't leave threads waiting.
+ *
+ * Without levels a configuration can be reached by a longer path first, so every visited configuration keeps a
+ * link holding its depth and the link it was reached from, and a shorter path replaces the link with a
+ * compare-and-set and expands the configuration again. The visited table is a {@link VisitedTable}, an open
+ * addressing table whose slots are claimed with a compare-and-set, so finding or adding a configuration never
+ * takes a lock. A solution found first might not be the shortest, so the search keeps going until every
+ * configuration that could still lead to a shorter one has been expanded, skipping any whose neighbors would be
+ * no shallower than the best solution so far. The path returned is as short as the one {@link Solver} returns,
+ * but can be a different one.
+ *
+ * The pool is kept for the life of the solver, so solve can be called again. Call shutdown once the solver is no
+ * longer needed to stop its threads.
+ *
+ * @author Luke Chelius
+ */
+public class WorkStealingSolver<C extends Configuration> {
+
+    /**
+     * How a configuration was reached: its depth, the configuration itself and the link of the configuration it
+     * was reached from. Links never change, so following them always gives a path of exactly depth moves.
+     */
+    private record Link<C>(int depth, C config, Link<C> parent) {}
+
+    /**
+     * The shortest known way of reaching a visited configuration, replaced by a compare-and-set when a shorter
+     * one is found.
+     */
+    @SuppressWarnings("serial")
+    private static class Node<C> extends AtomicReference<Link<C>> {
+
+        /**
+         * The canonical form of the configuration, which the visited table finds the node by.
+         */
+        private final Object key;
+
+        /**
+         * Creates a node reached by a link.
+         * @param key the canonical form of the configuration
+         * @param link the first way the configuration was reached
+         */
+        Node(Object key, Link<C> link) {
+            super(link);
+            this.key = key;
+        }
+    }
+
+    /**
+     * A lock-free set of nodes by key, kept as a chain of open addressing tables with linear probing. A slot
+     * only ever changes once, from empty to a node or to MOVED, with a compare-and-set. When a table is half
+     * full a table four times as big is added after it, and from then on an empty slot a probe reaches is made
+     * MOVED instead of being used. Nodes are never copied, so a key is either in the first empty slot of its probe in
+     * a table or in a later table, and a probe that reaches MOVED goes on to the next table.
+     */
+    private static class VisitedTable<C> {
+
+        /**
+         * Marks a slot that will never hold a node, because the table has a next one.
+         */
+        private static final Node<?> MOVED = new Node<>(null, null);
+
+        /**
+         * The largest number of slots a table can have.
+         */
+        private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+        /**
+         * The slots, a power of two of them.
+         */
+        private final AtomicReferenceArray<Node<C>> slots;
+
+        /**
+         * The number of nodes in this table, not counting later ones.
+         */
+        private final AtomicInteger size;
+
+        /**
+         * The table that takes new nodes once this one is half full, null until then.
+         */
+        private final AtomicReference<VisitedTable<C>> next;
+
+        /**
+         * Creates an empty table.
+         * @param capacity the number of slots, a power of two
+         */
+        VisitedTable(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.size = new AtomicInteger();
+            this.next = new AtomicReference<>();
+        }
+
+        /**
+         * Adds a node unless one with the same key is already in the table.
+         * @param node the node to add
+         * @return the node already in the table with the same key, or null if node was added
+         */
+        @SuppressWarnings("unchecked")
+        Node<C> putIfAbsent(Node<C> node) {
+            int hash = spread(node.key.hashCode());
+            for (VisitedTable<C> table = this; ; table = table.nextTable()) {
+                int mask = table.slots.length() - 1;
+                int index = hash & mask;
+                for (int probes = 0; probes <= mask; ) {
+                    Node<C> slot = table.slots.get(index);
+                    if (slot == null) {
+                        // Once there is a next table, the slot is sealed so the key can't be added here later
+                        Node<C> claim = table.next.get() == null ? node : (Node<C>) MOVED;
+                        if (!table.slots.compareAndSet(index, null, claim)) {
+                            continue;  // Another thread took the slot first, so looks at it again
+                        }
+                        if (claim == node) {
+                            table.added();
+                            return null;
+                        }
+                        break;
+                    }
+                    if (slot == MOVED) {
+                        break;
+                    }
+                    if (slot.key.equals(node.key)) {
+                        return slot;
+                    }
+                    index = (index + 1) & mask;
+                    probes++;
+                }
+            }
+        }
+
+        /**
+         * Counts a node added to this table, adding the next table once this one is half full.
+         */
+        private void added() {
+            int capacity = slots.length();
+            if (size.incrementAndGet() > capacity >>> 1 && next.get() == null && capacity < MAXIMUM_CAPACITY) {
+                grow();
+            }
+        }
+
+        /**
+         * Returns the next table, adding it if this one filled up before it was added.
+         * @return the next table
+         * @throws IllegalStateException if this table is full and already as big as a table can be
+         */
+        private VisitedTable<C> nextTable() {
+            VisitedTable<C> table = next.get();
+            if (table == null) {
+                if (slots.length() >= MAXIMUM_CAPACITY) {
+                    throw new IllegalStateException("Visited table is full");
+                }
+                grow();
+                table = next.get();
+            }
+            return table;
+        }
+
+        /**
+         * Adds a next table four times as big as this one, or as big as a table can be, unless another thread
+         * added one first.
+         */
+        private void grow() {
+            int capacity = slots.length() >= MAXIMUM_CAPACITY >>> 2 ? MAXIMUM_CAPACITY : slots.length() << 2;
+            next.compareAndSet(null, new VisitedTable<>(capacity));
+        }
+
+        /**
+         * Returns the number of nodes in this table and every later one.
+         * @return the number of nodes
+         */
+        int size() {
+            int total = 0;
+            for (VisitedTable<C> table = this; table != null; table = table.next.get()) {
+                total += table.size.get();
+            }
+            return total;
+        }
+
+        /**
+         * Mixes the bits of a hash code so keys with close hash codes don't probe the same run of slots.
+         * @param hash the hash code
+         * @return the mixed hash
+         */
+        private static int spread(int hash) {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * The number of slots in the first visited table.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    /**
+     * The pool the expansions run in, with each worker taking its own tasks first in first out.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The visited configurations by canonical form.
+     */
+    private VisitedTable<C> visited;
+
+    /**
+     * The link of the shortest solution found so far, null if none has been.
+     */
+    private AtomicReference<Link<C>> best;
+
+    /**
+     * The starting configuration.
+     */
+    private C start;
+
+    /**
+     * The total number of configurations found, including duplicates.
+     */
+    private LongAdder totalConfigs;
+
+    /**
+     * The number of configurations whose neighbors were generated.
+     */
+    private LongAdder expanded;
+
+    /**
+     * The number of times a shorter path to an already visited configuration was found.
+     */
+    private LongAdder improved;
+
+    /**
+     * The number of compare-and-sets on a link that lost to another thread and had to be retried.
+     */
+    private LongAdder casRetries;
+
+    /**
+     * How long the last solve took in nanoseconds.
+     */
+    private long elapsed;
+
+    /**
+     * Creates a new WorkStealingSolver that searches with the given number of threads.
+     * @param start the starting configuration
+     * @param threads the number of worker threads in the pool
+     */
+    public WorkStealingSolver(C start, int threads) {
+        this.pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        this.visited = new VisitedTable<>(INITIAL_CAPACITY);
+        this.best = new AtomicReference<>();
+        this.start = start;
+        this.totalConfigs = new LongAdder();
+        this.expanded = new LongAdder();
+        this.improved = new LongAdder();
+        this.casRetries = new LongAdder();
+    }
+
+    /**
+     * Expands one configuration, unless a shorter way to it was found after the task was made. Every task it
+     * forks is counted as pending on it, so the task for the start only completes once every expansion has.
+     */
+    @SuppressWarnings("serial")
+    private class ExpandTask extends CountedCompleter<Void> {
+
+        /**
+         * The node of the configuration.
+         */
+        private final Node<C> node;
+
+        /**
+         * The link the configuration was reached by when the task was made.
+         */
+        private final Link<C> link;
+
+        /**
+         * Creates a task that expands a configuration.
+         * @param parent the task that forked it, null for the start
+         * @param node the node of the configuration
+         * @param link the link it was reached by
+         */
+        ExpandTask(ExpandTask parent, Node<C> node, Link<C> link) {
+            super(parent);
+            this.node = node;
+            this.link = link;
+        }
+
+        /**
+         * Offers every neighbor the depth one past this configuration's, forking a task for each one that is new
+         * or reached by a shorter path than before.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public void compute() {
+            // A shorter path replaced the link, so the task for it does the expanding instead
+            if (node.get() != link || !canImprove(link.depth() + 1)) {
+                tryComplete();
+                return;
+            }
+            expanded.increment();
+            int depth = link.depth() + 1;
+            for (Object o : link.config().getNeighbors()) {
+                C neighbor = (C) o;
+                totalConfigs.increment();
+                Link<C> offered = new Link<>(depth, neighbor, link);
+                Node<C> created = new Node<>(neighbor.canonical(), offered);
+                Node<C> existing = visited.putIfAbsent(created);
+                if (existing == null) {
+                    reached(created, offered);
+                }
+                else if (lower(existing, offered)) {
+                    improved.increment();
+                    reached(existing, offered);
+                }
+            }
+            tryComplete();
+        }
+
+        /**
+         * Records a solution or forks a task for a configuration that was just given a new link.
+         * @param reachedNode the node of the configuration
+         * @param reachedLink its new link
+         */
+        private void reached(Node<C> reachedNode, Link<C> reachedLink) {
+            if (reachedLink.config().isSolution()) {
+                offerSolution(reachedLink);
+            }
+            else if (canImprove(reachedLink.depth() + 1)) {
+                addToPendingCount(1);
+                new ExpandTask(this, reachedNode, reachedLink).fork();
+            }
+        }
+    }
+
+    /**
+     * Replaces a node's link with one of smaller depth, retrying if another thread changes it first.
+     * @param node the node
+     * @param link the new link
+     * @return true if the link was replaced, false if the node already had one at least as short
+     */
+    private boolean lower(Node<C> node, Link<C> link) {
+        for (Link<C> current = node.get(); current.depth() > link.depth(); current = node.get()) {
+            if (node.compareAndSet(current, link)) {
+                return true;
+            }
+            casRetries.increment();
+        }
+        return false;
+    }
+
+    /**
+     * Makes a solution the best one if it is shorter than the best so far.
+     * @param link the link of the solution
+     */
+    private void offerSolution(Link<C> link) {
+        for (Link<C> current = best.get(); current == null || current.depth() > link.depth(); current = best.get()) {
+            if (best.compareAndSet(current, link)) {
+                return;
+            }
+            casRetries.increment();
+        }
+    }
+
+    /**
+     * Checks if a configuration at a depth could still be on a shorter path than the best solution so far.
+     * @param depth the depth
+     * @return true if it is shallower than the best solution, or no solution has been found
+     */
+    private boolean canImprove(int depth) {
+        Link<C> solution = best.get();
+        return solution == null || depth < solution.depth();
+    }
+
+    /**
+     * Searches until no configuration that could lead to a shorter solution is left to expand.
+     * @param print a boolean, true to print the total and unique configs, false not to
+     * @return a LinkedList containing the configurations in order to get from the start
+     * to the end node in the least number of steps
+     */
+    public LinkedList<C> solve(boolean print) {
+        long begin = System.nanoTime();
+        visited = new VisitedTable<>(INITIAL_CAPACITY);
+        best.set(null);
+        totalConfigs.reset();
+        expanded.reset();
+        improved.reset();
+        casRetries.reset();
+        Link<C> startLink = new Link<>(0, start, null);
+        Node<C> startNode = new Node<>(start.canonical(), startLink);
+        visited.putIfAbsent(startNode);
+        totalConfigs.increment();  // Adds 1 to the configuration count
+
+        if (start.isSolution()) {
+            best.set(startLink);
+        }
+        else {
+            pool.invoke(new ExpandTask(null, startNode, startLink));
+        }
+        elapsed = System.nanoTime() - begin;
+        printConfigs(print);
+
+        // Follows the links back from the best solution
+        Link<C> link = best.get();
+        if (link == null) {
+            return null;
+        }
+        LinkedList<C> solution = new LinkedList<>();
+        for (; link != null; link = link.parent()) {
+            solution.add(0, link.config());
+        }
+        return solution;
+    }
+
+    /**
+     * Stops the threads of the pool. The solver can't be used after this.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Returns the number of configurations whose neighbors were generated during the last solve, counting a
+     * configuration again each time a shorter path to it was expanded.
+     * @return the number of expanded configurations
+     */
+    public long getExpanded() {
+        return expanded.sum();
+    }
+
+    /**
+     * Returns the number of times a shorter path to an already visited configuration was found, each of which
+     * expands it again unless it can't lead to a shorter solution.
+     * @return the number of improved depths
+     */
+    public long getImproved() {
+        return improved.sum();
+    }
+
+    /**
+     * Returns the number of compare-and-sets that lost a race with another thread and were retried.
+     * @return the number of retries
+     */
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * Returns the number of configurations expanded per second during the last solve.
+     * @return the expansion throughput
+     */
+    public double getThroughput() {
+        return elapsed == 0 ? 0 : expanded.sum() * 1e9 / elapsed;
+    }
+
+    /**
+     * Prints the total and unique config counts the same way {@link Solver} does.
+     * @param print a boolean, true to print, false not to
+     */
+    public void printConfigs(boolean print) {
+        if (print) {
+            System.out.println("Total configs: " + totalConfigs.sum());  // Prints the total config count
+            System.out.println("Unique configs: " + visited.size());  // Prints the unique config count
+        }
+    }
+}